@@ -1,11 +1,12 @@
 #!/usr/bin/env bash
 
-# Usage: bash build-database.sh RESULTS_FOLDER DATABASE SUBJECT_LIST
+# Usage: bash build-database.sh RESULTS_FOLDER DATABASE SUBJECT_LIST [INCREMENTAL]
 
 if [[ $1 == "" ]] || [[ $2 == "" ]] || [[ $3 == "" ]]; then
     echo "arg1 - Results folder"
     echo "arg2 - Path to database to create"
     echo "arg3 - List of subjects/shas in CSV (format: url,sha)"
+    echo "arg4 - Optional: true to only add new or changed results to an existing database (default: false)"
     exit
 fi
 
@@ -14,6 +15,7 @@ echo "Started at: $(date)"
 results_folder="$1"
 database="$2"
 subject_list="$3"
+incremental="${4:-false}"
 
 scripts_folder=$(cd "$(dirname $BASH_SOURCE)"; pwd)
 
@@ -68,7 +70,7 @@ done
 
 mvn install -DskipTests exec:java \
     -Dexec.mainClass="edu.illinois.cs.dt.tools.analysis.Analysis" \
-    -Dexec.args="--results '$results_folder' --db '$database' --subjectList '$subject_list' --subjectListLoc '$subject_list_loc'"
+    -Dexec.args="--results '$results_folder' --db '$database' --subjectList '$subject_list' --subjectListLoc '$subject_list_loc' --incremental '$incremental'"
 
 # Now that we know the flaky tests, we want to mark whether they occurred in a class with @FixMethodOrder
 # They should have already all been downloaded above, so we just need to cd and check
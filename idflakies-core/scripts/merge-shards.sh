@@ -0,0 +1,32 @@
+#!/usr/bin/env bash
+
+if [[ -z "$1" ]] || [[ -z "$2" ]]; then
+    echo "Usage: bash merge-shards.sh OUTPUT SHARD_DIR..."
+    echo "Each SHARD_DIR is the .dtfixingtools directory of one shard"
+    exit 1
+fi
+
+scripts_folder=$(cd "$(dirname $BASH_SOURCE)"; pwd)
+
+output="$1"
+shift
+
+if [[ ! "$output" =~ "$/" ]]; then
+    output="$(cd "$(dirname $output)"; pwd)/$(basename $output)"
+fi
+
+shards=""
+for shard in "$@"; do
+    shard="$(cd "$shard"; pwd)"
+    if [[ -z "$shards" ]]; then
+        shards="$shard"
+    else
+        shards="$shards,$shard"
+    fi
+done
+
+# Go to where the pom is
+cd "$scripts_folder/.."
+
+mvn install -DskipTests exec:java -Dexec.mainClass="edu.illinois.cs.dt.tools.detection.ShardMerger" \
+    -Dexec.args="--shards '$shards' --output '$output'"
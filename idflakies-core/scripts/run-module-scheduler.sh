@@ -0,0 +1,23 @@
+#!/usr/bin/env bash
+
+if [[ -z "$1" ]] || [[ -z "$2" ]]; then
+    echo "Usage: bash run-module-scheduler.sh PROJECT SLOTS [MVN_ARGS]"
+    echo "PROJECT must contain module-test-time.csv (from edu.illinois.cs.dt.tools.utility.ModuleTestTimePlugin)"
+    exit 1
+fi
+
+project="$1"
+slots="$2"
+mvn_args="$3"
+
+scripts_folder=$(cd "$(dirname $BASH_SOURCE)"; pwd)
+
+if [[ ! "$project" =~ "$/" ]]; then
+    project="$(cd "$(dirname $project)"; pwd)/$(basename $project)"
+fi
+
+# Go to where the pom is
+cd "$scripts_folder/.."
+
+mvn install -DskipTests exec:java -Dexec.mainClass="edu.illinois.cs.dt.tools.detection.ModuleScheduler" \
+    -Dexec.args="--project '$project' --slots '$slots' --mvn-args '$mvn_args'"
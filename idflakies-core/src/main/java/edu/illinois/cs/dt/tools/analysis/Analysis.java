@@ -1,18 +1,18 @@
 package edu.illinois.cs.dt.tools.analysis;
 
-import com.google.gson.Gson;
 import com.opencsv.CSVReader;
 import com.reedoei.eunomia.collections.ListEx;
-import com.reedoei.eunomia.io.files.FileUtil;
 import com.reedoei.eunomia.util.StandardMain;
 import edu.illinois.cs.dt.tools.detection.DetectionRound;
 import edu.illinois.cs.dt.tools.detection.DetectorPathManager;
 import edu.illinois.cs.dt.tools.detection.DetectorUtil;
+import edu.illinois.cs.dt.tools.runner.ResultLog;
 import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 import edu.illinois.cs.dt.tools.runner.data.DependentTestList;
 import edu.illinois.cs.dt.tools.utility.OperationTime;
 import edu.illinois.cs.dt.tools.utility.TestRunParser;
+import edu.illinois.cs.dt.tools.utility.TestRunResultReader;
 import edu.illinois.cs.testrunner.data.results.Result;
 import edu.illinois.cs.testrunner.data.results.TestResult;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
@@ -27,6 +27,7 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -65,6 +66,12 @@ public class Analysis extends StandardMain {
     private final int maxTestRuns;
     private final Path subjectList;
     private final Path subjectListLOC;
+    // Only ingest files that are not in the ingest manifest yet or changed since they were ingested
+    private final boolean incremental;
+    private final IngestManifest manifest;
+    // Whether anything in the results folder being inserted was (re)ingested
+    private boolean folderChanged = false;
+    private final TestRunIngester ingester;
 
     private Analysis(final String[] args) throws SQLException {
         super(args);
@@ -74,6 +81,11 @@ public class Analysis extends StandardMain {
         this.subjectList = Paths.get(getArgRequired("subjectList")).toAbsolutePath();
         this.subjectListLOC = Paths.get(getArgRequired("subjectListLoc")).toAbsolutePath();
         this.maxTestRuns = getArg("max-test-runs").map(Integer::parseInt).orElse(0);
+        this.incremental = getArg("incremental").map(Boolean::parseBoolean).orElse(false);
+        this.manifest = new IngestManifest(sqlite, results, incremental);
+        this.ingester = new TestRunIngester(sqlite,
+                getArg("threads").map(Integer::parseInt).orElse(Runtime.getRuntime().availableProcessors()),
+                getArg("batch-size").map(Integer::parseInt).orElse(500));
     }
 
     public static void main(final String[] args) {
@@ -100,8 +112,19 @@ public class Analysis extends StandardMain {
     protected void run() throws Exception {
         createTables();
 
-        insertFullSubjectList(subjectList);
-        insertSubjectLOC(subjectListLOC);
+        // Lists from earlier runs are still in the database when running incrementally
+        try (final ResultSet rs = sqlite.statement(SQLStatements.NEXT_FLAKY_TEST_LIST_ID).query()) {
+            dtListIndex = rs.next() ? rs.getInt("next_id") : 0;
+        }
+
+        if (!skip(manifest.check(subjectList.getParent(), subjectList))) {
+            insertFullSubjectList(subjectList);
+            manifest.record(subjectList.getParent(), subjectList);
+        }
+        if (!skip(manifest.check(subjectListLOC.getParent(), subjectListLOC))) {
+            insertSubjectLOC(subjectListLOC);
+            manifest.record(subjectListLOC.getParent(), subjectListLOC);
+        }
 
         System.out.println();
 
@@ -118,11 +141,20 @@ public class Analysis extends StandardMain {
             }
         }
 
+        System.out.println("[INFO] Ingested " + manifest.summary() + (incremental ? " (unchanged files skipped)" : ""));
+
         runPostSetup();
 
         sqlite.save();
     }
 
+    /**
+     * Unchanged files only need to be ingested again when not running incrementally.
+     */
+    private boolean skip(final IngestManifest.Change change) {
+        return incremental && change == IngestManifest.Change.UNCHANGED;
+    }
+
     private void insertSubjectLOC(final Path path) throws IOException, SQLException {
         System.out.println("[INFO] Inserting subject's LOC and TEST_LOC");
 
@@ -161,6 +193,10 @@ public class Analysis extends StandardMain {
         // Get the slug. The path starts with a slash, so get rid of it via substring
         final String slug = new URL(url).getPath().substring(1);
 
+        if (sqlite.checkExists("subject_raw", slug.toLowerCase())) {
+            return;
+        }
+
         System.out.println("[INFO] Inserting " + url + " with slug " + slug + " and SHA " + sha);
         sqlite.statement(SQLStatements.INSERT_RAW_SUBJECT)
                 .param(slug.toLowerCase())
@@ -171,6 +207,7 @@ public class Analysis extends StandardMain {
 
     private void runPostSetup() throws IOException {
         System.out.println("[INFO] Running post setup queries");
+        sqlite.executeFile(SQLStatements.CLEAR_POST_SETUP);
         sqlite.executeFile(SQLStatements.POST_SETUP);
     }
 
@@ -202,7 +239,16 @@ public class Analysis extends StandardMain {
             return;
         }
 
+        folderChanged = false;
+
         final List<String> originalOrder = Files.readAllLines(originalOrderPath);
+        final IngestManifest.Change originalOrderChange = manifest.check(path, originalOrderPath);
+
+        if (!skip(originalOrderChange) && originalOrderChange != IngestManifest.Change.NEW) {
+            folderChanged = true;
+            sqlite.statement(SQLStatements.DELETE_ORIGINAL_ORDER).param(name).executeUpdate();
+        }
+
         if (!sqlite.checkExists("original_order", "subject_name", name)) {
             System.out.println("[INFO] Inserting original order for " + name + " (" + originalOrder.size() + " tests)");
 
@@ -229,8 +275,9 @@ public class Analysis extends StandardMain {
             return;
         }
 
-        final boolean foundPassing =
-            new TestRunParser(results)
+        // The original order is only recorded once a passing run was found, so an unchanged one needs no new search
+        final boolean foundPassing = skip(originalOrderChange) ||
+            new TestRunParser(results, false)
             .testRunResults()
             .anyMatch(trr -> {
                 if (trr != null) {
@@ -258,6 +305,10 @@ public class Analysis extends StandardMain {
         }
 
         System.out.println("[INFO] Found passing order for: " + name);
+        if (!skip(originalOrderChange)) {
+            folderChanged = true;
+            manifest.record(path, originalOrderPath);
+        }
 
         insertTestRuns(name, path.resolve(RunnerPathManager.TEST_RUNS).resolve("results"));
 
@@ -339,6 +390,20 @@ public class Analysis extends StandardMain {
     }
 
     private void insertTestRuns(final String name, final Path testRunResults) throws IOException, SQLException {
+        final Path testRuns = testRunResults.getParent();
+        final Path folder = testRuns.getParent();
+
+        if (ResultLog.exists(testRuns)) {
+            // The index only grows, so it changes whenever runs are added
+            final Path index = testRuns.resolve(ResultLog.LOG_DIR).resolve(ResultLog.INDEX);
+            if (!skip(manifest.check(folder, index))) {
+                folderChanged = true;
+                insertTestRunLog(name, ResultLog.at(testRuns));
+                manifest.record(folder, index);
+            }
+            return;
+        }
+
         if (!Files.isDirectory(testRunResults)) {
             return;
         }
@@ -348,97 +413,116 @@ public class Analysis extends StandardMain {
         final int limit = Math.min(maxTestRuns, paths.size());
         System.out.println("[INFO] Inserting test runs for " + name + " (" + paths.size() + " runs, saving " + limit + ")");
 
+        final List<TestRunIngester.Job> jobs = new ArrayList<>();
         for (int i = 0; i < limit; i++) {
             final Path p = paths.get(i);
-            System.out.print("\r[INFO] Inserting run " + (i + 1) + " of " + paths.size());
-            insertTestRunResult(name, new Gson().fromJson(FileUtil.readFile(p), TestRunResult.class));
-        }
+            final IngestManifest.Change change = manifest.check(folder, p);
 
-        System.out.println();
-    }
-
-    private void insertTestRunResult(final String name, final TestRunResult testRunResult) throws SQLException {
-        if (testRunResult == null) {
-            return;
-        }
+            if (skip(change)) {
+                continue;
+            }
 
-        if (sqlite.checkExists("test_run_result", testRunResult.id())) {
-            return;
+            folderChanged = true;
+            jobs.add(new TestRunIngester.Job(
+                    () -> TestRunResultReader.readWithoutStackTraces(p),
+                    change != IngestManifest.Change.NEW,
+                    () -> manifest.record(folder, p)));
         }
 
-        sqlite.statement(SQLStatements.INSERT_TEST_RUN_RESULT)
-                .param(name)
-                .param(testRunResult.id())
-                .param(0)
-                .executeUpdate();
+        ingester.ingest(name, jobs);
+    }
 
-        final Procedure statement = sqlite.statement(SQLStatements.INSERT_TEST_RESULT);
+    private void insertTestRunLog(final String name, final ResultLog log) throws IOException, SQLException {
+        final List<String> ids = log.ids();
 
-        statement.beginTransaction();
+        final int limit = Math.min(maxTestRuns, ids.size());
+        System.out.println("[INFO] Inserting test runs for " + name + " (" + ids.size() + " runs, saving " + limit + ")");
 
-        final AtomicInteger count = new AtomicInteger();
-        testRunResult.results().forEach((testName, testResult) -> {
-            try {
-                statement.param(testRunResult.id())
-                        .param(testRunResult.testOrder().indexOf(testResult.name()))
-                        .param(testResult.name())
-                        .param((float) testResult.time())
-                        .param(String.valueOf(testResult.result()))
-                        .addBatch();
-                count.incrementAndGet();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+        final List<TestRunIngester.Job> jobs = new ArrayList<>();
+        for (int i = 0; i < limit; i++) {
+            // Runs in the log never change, so only new ones need to be read
+            if (sqlite.checkExists("test_run_result", ids.get(i))) {
+                continue;
             }
-        });
 
-        statement.executeBatch();
-
-        statement.commit();
-        statement.endTransaction();
+            final String id = ids.get(i);
+            jobs.add(new TestRunIngester.Job(() -> log.read(id, false).orElse(null), false, () -> {}));
+        }
 
-        sqlite.statement(SQLStatements.UPDATE_TEST_RUN_RESULT_COUNT)
-                .param(count.get())
-                .param(testRunResult.id())
-                .executeUpdate();
+        ingester.ingest(name, jobs);
     }
 
-    private void insertDetectionResults(final String name, final String roundType, final Path path) throws IOException {
+    private void insertDetectionResults(final String name, final String roundType, final Path path) throws IOException, SQLException {
         final Path detectionResults = path.resolve(roundType);
+        final Path folder = path.getParent();
 
         int i = 0;
 
         final Set<String> knownFlakyTests = new HashSet<>();
         final Set<String> addedRounds = new HashSet<>();
 
+        final List<IngestManifest.Change> changes = new ArrayList<>();
+        while (Files.exists(detectionResults.resolve("round" + changes.size() + ".json"))) {
+            changes.add(manifest.check(folder, detectionResults.resolve("round" + changes.size() + ".json")));
+        }
+
+        // The extra original rounds come from all original rounds and test runs, so they are redone if anything changed
+        final boolean redoOriginal = roundType.equals("original") &&
+                (!incremental || folderChanged || changes.stream().anyMatch(c -> !skip(c)));
+
         if (Files.exists(detectionResults)) {
             final ListEx<Path> paths = listFiles(detectionResults);
             System.out.println("[INFO] Inserting " + roundType + " detection results for " + name
                     + " (" + paths.size() + " results)");
 
-            for (i = 0; Files.exists(detectionResults.resolve("round" + i + ".json")); i++) {
+            for (i = 0; i < changes.size(); i++) {
                 final Path p = detectionResults.resolve("round" + i  + ".json");
                 final int roundNumber = roundNumber(p.getFileName().toString());
+                final IngestManifest.Change change = changes.get(i);
+
+                if (skip(change) && !redoOriginal) {
+                    continue;
+                }
 
                 try {
-                    final DetectionRound round = new Gson().fromJson(FileUtil.readFile(p), DetectionRound.class);
+                    final DetectionRound round = DetectionRound.fromFile(p);
 
                     if (round != null && round.unfilteredTests() != null && round.unfilteredTests().names() != null) {
                         knownFlakyTests.addAll(round.unfilteredTests().names());
                         addedRounds.addAll(round.testRunIds());
                     }
 
-                    insertDetectionRound(name, roundType, roundNumber, round);
+                    if (!skip(change)) {
+                        folderChanged = true;
+                        if (change != IngestManifest.Change.NEW) {
+                            deleteDetectionRounds(name, roundType, roundNumber, roundNumber);
+                        }
+
+                        insertDetectionRound(name, roundType, roundNumber, round);
+                        manifest.record(folder, p);
+                    }
                 } catch (IOException | SQLException e) {
                     throw new RuntimeException(e);
                 }
             }
         }
 
-        if (roundType.equals("original")) {
+        if (redoOriginal) {
+            deleteDetectionRounds(name, roundType, i, Integer.MAX_VALUE);
             insertOriginalResults(name, i, addedRounds, knownFlakyTests, path.getParent());
         }
     }
 
+    private void deleteDetectionRounds(final String name, final String roundType,
+                                       final int fromRound, final int toRound) throws SQLException {
+        sqlite.statement(SQLStatements.DELETE_DETECTION_ROUND_TEST_RUNS)
+                .param(name).param(roundType).param(fromRound).param(toRound)
+                .executeUpdate();
+        sqlite.statement(SQLStatements.DELETE_DETECTION_ROUND)
+                .param(name).param(roundType).param(fromRound).param(toRound)
+                .executeUpdate();
+    }
+
     private void insertOriginalResults(final String subjectName, final int prevRoundNum,
                                        final Set<String> addedRounds,
                                        final Set<String> knownFlakyTests, final Path path) throws IOException {
@@ -463,7 +547,7 @@ public class Analysis extends StandardMain {
 
         final TestRunResult passing = passingRun(originalOrder);
 
-        new TestRunParser(results).testRunResults()
+        new TestRunParser(results, false).testRunResults()
             .forEach(trr -> {
                 if (trr != null) {
                     if (trr.testOrder().equals(originalOrder) && !addedRounds.contains(trr.id())) {
@@ -564,14 +648,15 @@ public class Analysis extends StandardMain {
 
         paths.forEach(p -> {
             try {
-                insertVerificationRound(name, roundType, roundNumber(p.getFileName().toString()), p);
+                insertVerificationRound(name, roundType, roundNumber(p.getFileName().toString()), p, basePath.getParent());
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         });
     }
 
-    private void insertVerificationRound(final String name, final String roundType, final int roundNumber, final Path p) throws IOException {
+    private void insertVerificationRound(final String name, final String roundType, final int roundNumber,
+                                         final Path p, final Path folder) throws IOException {
         listFiles(p).forEach(verificationStep -> {
             final String filename = verificationStep.getFileName().toString();
             final String[] split = filename.split("-");
@@ -581,7 +666,22 @@ public class Analysis extends StandardMain {
             final int verificationRoundNumber = roundNumber(split[2]);
 
             try {
-                final TestRunResult testRunResult = new Gson().fromJson(FileUtil.readFile(verificationStep), TestRunResult.class);
+                final IngestManifest.Change change = manifest.check(folder, verificationStep);
+                if (skip(change)) {
+                    return;
+                }
+
+                if (change != IngestManifest.Change.NEW) {
+                    sqlite.statement(SQLStatements.DELETE_VERIFICATION_ROUND)
+                            .param(name)
+                            .param(roundType)
+                            .param(roundNumber)
+                            .param(verificationRoundNumber)
+                            .param(testName)
+                            .executeUpdate();
+                }
+
+                final TestRunResult testRunResult = TestRunResultReader.readWithoutStackTraces(verificationStep);
 
                 sqlite.statement(SQLStatements.INSERT_VERIFICATION_ROUND)
                         .param(name)
@@ -594,7 +694,8 @@ public class Analysis extends StandardMain {
                         .param(String.valueOf(testRunResult.results().get(testName).result()))
                         .executeUpdate();
 
-                insertTestRunResult(name, testRunResult);
+                ingester.insert(name, testRunResult, false);
+                manifest.record(folder, verificationStep);
             } catch (IOException | SQLException e) {
                 throw new RuntimeException(e);
             }
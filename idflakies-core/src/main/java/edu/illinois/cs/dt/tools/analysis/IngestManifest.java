@@ -0,0 +1,101 @@
+package edu.illinois.cs.dt.tools.analysis;
+
+import edu.illinois.cs.dt.tools.utility.MD5;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The ingest_manifest table: the size, modification time and content hash of every file Analysis has ingested.
+ *
+ * A file whose size and modification time match the manifest is unchanged. Otherwise its content hash decides,
+ * so files that were only touched (e.g., copied to a new archive) are not ingested again.
+ * Outside incremental mode every file is ingested anyway, so files are not hashed and are recorded without a hash.
+ */
+public class IngestManifest {
+    public enum Change {
+        NEW, CHANGED, UNCHANGED
+    }
+
+    private final SQLite sqlite;
+    private final Path root;
+    private final boolean incremental;
+    // Hashes computed by check, so record does not read the file again
+    private final Map<Path, String> hashes = new HashMap<>();
+
+    private int newFiles = 0;
+    private int changedFiles = 0;
+    private int unchangedFiles = 0;
+
+    public IngestManifest(final SQLite sqlite, final Path root, final boolean incremental) {
+        this.sqlite = sqlite;
+        this.root = root;
+        this.incremental = incremental;
+    }
+
+    public Change check(final Path folder, final Path file) throws IOException, SQLException {
+        final String path = key(file);
+        final long size = Files.size(file);
+        final long mtime = Files.getLastModifiedTime(file).toMillis();
+
+        try (final ResultSet rs = sqlite.statement(SQLStatements.SELECT_INGEST_MANIFEST).param(path).query()) {
+            if (!rs.next()) {
+                newFiles++;
+                return Change.NEW;
+            }
+
+            if (rs.getLong("size") == size && rs.getLong("mtime") == mtime) {
+                unchangedFiles++;
+                return Change.UNCHANGED;
+            }
+
+            if (!incremental) {
+                changedFiles++;
+                return Change.CHANGED;
+            }
+
+            final String hash = MD5.md5(file);
+            hashes.put(file, hash);
+
+            if (hash.equals(rs.getString("hash"))) {
+                // Same content, so just remember the new size and time
+                record(folder, file);
+                unchangedFiles++;
+                return Change.UNCHANGED;
+            }
+        }
+
+        changedFiles++;
+        return Change.CHANGED;
+    }
+
+    public void record(final Path folder, final Path file) throws IOException, SQLException {
+        final String hash;
+        if (!incremental) {
+            hash = null;
+        } else {
+            hash = hashes.containsKey(file) ? hashes.remove(file) : MD5.md5(file);
+        }
+
+        sqlite.statement(SQLStatements.UPSERT_INGEST_MANIFEST)
+                .param(key(file))
+                .param(key(folder))
+                .param(Files.size(file))
+                .param(Files.getLastModifiedTime(file).toMillis())
+                .param(hash)
+                .executeUpdate();
+    }
+
+    public String summary() {
+        return newFiles + " new, " + changedFiles + " changed, " + unchangedFiles + " unchanged files";
+    }
+
+    private String key(final Path file) {
+        return root.relativize(file.toAbsolutePath()).toString();
+    }
+}
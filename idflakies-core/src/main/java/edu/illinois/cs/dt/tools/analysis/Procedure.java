@@ -30,6 +30,13 @@ public class Procedure {
         return this;
     }
 
+    public Procedure param(final long l) throws SQLException {
+        statement.setLong(index, l);
+        index++;
+
+        return this;
+    }
+
     public Procedure param(final String s) throws SQLException {
         statement.setString(index, s);
         index++;
@@ -10,20 +10,31 @@ public class SQLStatements {
 
     public static final Path CREATE_TABLES = Paths.get("src/main/sql/build/create_tables.sql");
     public static final Path POST_SETUP = Paths.get("src/main/sql/build/post_setup.sql");
+    public static final Path CLEAR_POST_SETUP = Paths.get("src/main/sql/build/post_setup_clear.sql");
+
+    public static final Path SELECT_INGEST_MANIFEST = Paths.get("src/main/sql/build/ingest_manifest_select.sql");
+    public static final Path UPSERT_INGEST_MANIFEST = Paths.get("src/main/sql/build/ingest_manifest_upsert.sql");
 
     public static final Path INSERT_SUBJECT = Paths.get("src/main/sql/build/subject_insert.sql");
     public static final Path INSERT_ORIGINAL_ORDER = Paths.get("src/main/sql/build/original_order_insert.sql");
+    public static final Path DELETE_ORIGINAL_ORDER = Paths.get("src/main/sql/build/original_order_delete.sql");
 
     public static final Path INSERT_TEST_RUN_RESULT = Paths.get("src/main/sql/build/test_run_result_insert.sql");
     public static final Path UPDATE_TEST_RUN_RESULT_COUNT = Paths.get("src/main/sql/build/test_run_result_count_update.sql");
     public static final Path INSERT_TEST_RESULT = Paths.get("src/main/sql/build/test_result_insert.sql");
+    public static final Path DELETE_TEST_RUN_RESULT = Paths.get("src/main/sql/build/test_run_result_delete.sql");
+    public static final Path DELETE_TEST_RESULT = Paths.get("src/main/sql/build/test_result_delete.sql");
 
     public static final Path INSERT_FLAKY_TEST_LIST = Paths.get("src/main/sql/build/flaky_test_list_insert.sql");
+    public static final Path NEXT_FLAKY_TEST_LIST_ID = Paths.get("src/main/sql/build/flaky_test_list_next_id.sql");
     public static final Path INSERT_FLAKY_TEST = Paths.get("src/main/sql/build/flaky_test_insert.sql");
     public static final Path INSERT_DETECTION_ROUND = Paths.get("src/main/sql/build/detection_round_insert.sql");
     public static final Path INSERT_DETECTION_ROUND_TEST_RUN = Paths.get("src/main/sql/build/detection_round_insert_test_run.sql");
+    public static final Path DELETE_DETECTION_ROUND = Paths.get("src/main/sql/build/detection_round_delete.sql");
+    public static final Path DELETE_DETECTION_ROUND_TEST_RUNS = Paths.get("src/main/sql/build/detection_round_test_runs_delete.sql");
 
     public static final Path INSERT_VERIFICATION_ROUND = Paths.get("src/main/sql/build/verify_round_insert.sql");
+    public static final Path DELETE_VERIFICATION_ROUND = Paths.get("src/main/sql/build/verify_round_delete.sql");
 
     public static final Path INSERT_MODULE_TEST_TIME = Paths.get("src/main/sql/build/module_test_time_insert.sql");
 
@@ -68,20 +79,31 @@ public class SQLStatements {
 
         ensureExists(CREATE_TABLES);
         ensureExists(POST_SETUP);
+        ensureExists(CLEAR_POST_SETUP);
+
+        ensureExists(SELECT_INGEST_MANIFEST);
+        ensureExists(UPSERT_INGEST_MANIFEST);
 
         ensureExists(INSERT_SUBJECT);
         ensureExists(INSERT_ORIGINAL_ORDER);
+        ensureExists(DELETE_ORIGINAL_ORDER);
 
         ensureExists(INSERT_TEST_RUN_RESULT);
         ensureExists(UPDATE_TEST_RUN_RESULT_COUNT);
         ensureExists(INSERT_TEST_RESULT);
+        ensureExists(DELETE_TEST_RUN_RESULT);
+        ensureExists(DELETE_TEST_RESULT);
 
         ensureExists(INSERT_FLAKY_TEST_LIST);
+        ensureExists(NEXT_FLAKY_TEST_LIST_ID);
         ensureExists(INSERT_FLAKY_TEST);
         ensureExists(INSERT_DETECTION_ROUND);
         ensureExists(INSERT_DETECTION_ROUND_TEST_RUN);
+        ensureExists(DELETE_DETECTION_ROUND);
+        ensureExists(DELETE_DETECTION_ROUND_TEST_RUNS);
 
         ensureExists(INSERT_VERIFICATION_ROUND);
+        ensureExists(DELETE_VERIFICATION_ROUND);
 
         ensureExists(INSERT_MODULE_TEST_TIME);
 
@@ -0,0 +1,238 @@
+package edu.illinois.cs.dt.tools.analysis;
+
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Inserts test run results into the database.
+ *
+ * A pool of parser threads reads the results and turns them into rows, while the calling thread (the only one
+ * that uses the database connection) writes them, with the test result inserts batched and one transaction per
+ * batch of test runs. Only a bounded number of parsed runs waits for the writer, so memory stays flat.
+ */
+public class TestRunIngester {
+    @FunctionalInterface
+    public interface Source {
+        TestRunResult read() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Written {
+        void written() throws IOException, SQLException;
+    }
+
+    public static class Job {
+        private final Source source;
+        // Delete the rows of a run with the same id first, because its file changed
+        private final boolean replace;
+        private final Written written;
+
+        public Job(final Source source, final boolean replace, final Written written) {
+            this.source = source;
+            this.replace = replace;
+            this.written = written;
+        }
+    }
+
+    private final SQLite sqlite;
+    private final int threads;
+    private final int batchSize;
+
+    public TestRunIngester(final SQLite sqlite, final int threads, final int batchSize) {
+        this.sqlite = sqlite;
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * @return The number of test runs inserted
+     */
+    public int ingest(final String subject, final List<Job> jobs) throws IOException, SQLException {
+        final ExecutorService parsers = Executors.newFixedThreadPool(threads);
+        final Deque<Job> pendingJobs = new ArrayDeque<>();
+        final Deque<Future<Rows>> pendingRows = new ArrayDeque<>();
+        final List<Written> writtenInBatch = new ArrayList<>();
+
+        final Procedure testResults = sqlite.statement(SQLStatements.INSERT_TEST_RESULT);
+        testResults.beginTransaction();
+
+        int next = 0;
+        int inBatch = 0;
+        int inserted = 0;
+
+        try {
+            while (next < jobs.size() || !pendingJobs.isEmpty()) {
+                while (next < jobs.size() && pendingJobs.size() < 4 * threads) {
+                    final Job job = jobs.get(next++);
+                    pendingJobs.addLast(job);
+                    pendingRows.addLast(parsers.submit(() -> Rows.of(job.source.read())));
+                }
+
+                final Job job = pendingJobs.removeFirst();
+                final Rows rows = rows(pendingRows.removeFirst());
+
+                if (rows != null) {
+                    if (write(subject, rows, job.replace, testResults)) {
+                        inserted++;
+                        System.out.print("\r[INFO] Inserted " + inserted + " test runs for " + subject);
+                    }
+
+                    // A run that could not be read is not recorded as written, so it is tried again next time
+                    writtenInBatch.add(job.written);
+                }
+
+                if (++inBatch >= batchSize) {
+                    commit(testResults, writtenInBatch);
+                    inBatch = 0;
+                }
+            }
+
+            commit(testResults, writtenInBatch);
+        } finally {
+            testResults.endTransaction();
+            parsers.shutdownNow();
+        }
+
+        if (inserted > 0) {
+            System.out.println();
+        }
+
+        return inserted;
+    }
+
+    /**
+     * Inserts a single test run, in its own transaction.
+     */
+    public boolean insert(final String subject, final TestRunResult testRunResult, final boolean replace) throws SQLException {
+        if (testRunResult == null) {
+            return false;
+        }
+
+        final Procedure testResults = sqlite.statement(SQLStatements.INSERT_TEST_RESULT);
+        testResults.beginTransaction();
+
+        try {
+            final boolean written = write(subject, Rows.of(testRunResult), replace, testResults);
+            testResults.executeBatch();
+            testResults.commit();
+            return written;
+        } finally {
+            testResults.endTransaction();
+        }
+    }
+
+    /**
+     * Commits the batch, and only then reports its runs as written.
+     */
+    private void commit(final Procedure testResults, final List<Written> writtenInBatch) throws IOException, SQLException {
+        testResults.executeBatch();
+        testResults.commit();
+
+        for (final Written written : writtenInBatch) {
+            written.written();
+        }
+        writtenInBatch.clear();
+    }
+
+    private Rows rows(final Future<Rows> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            System.out.println("[WARNING] Could not read test run: " + e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean write(final String subject, final Rows rows, final boolean replace,
+                          final Procedure testResults) throws SQLException {
+        if (replace) {
+            // Rows of this id may still be waiting in the batch
+            testResults.executeBatch();
+            sqlite.statement(SQLStatements.DELETE_TEST_RESULT).param(rows.id).executeUpdate();
+            sqlite.statement(SQLStatements.DELETE_TEST_RUN_RESULT).param(rows.id).executeUpdate();
+        } else if (sqlite.checkExists("test_run_result", rows.id)) {
+            return false;
+        }
+
+        sqlite.statement(SQLStatements.INSERT_TEST_RUN_RESULT)
+                .param(subject)
+                .param(rows.id)
+                .param(rows.results.size())
+                .executeUpdate();
+
+        for (final ResultRow row : rows.results) {
+            testResults.param(rows.id)
+                    .param(row.orderIndex)
+                    .param(row.name)
+                    .param(row.time)
+                    .param(row.result)
+                    .addBatch();
+        }
+
+        return true;
+    }
+
+    /**
+     * The rows of one test run, made by the parser threads so the writer only binds parameters.
+     */
+    private static class Rows {
+        private static Rows of(final TestRunResult testRunResult) {
+            if (testRunResult == null) {
+                return null;
+            }
+
+            final Map<String, Integer> orderIndex = new HashMap<>();
+            final List<String> testOrder = testRunResult.testOrder();
+            for (int i = testOrder.size() - 1; i >= 0; i--) {
+                // First occurrence wins, like indexOf
+                orderIndex.put(testOrder.get(i), i);
+            }
+
+            final List<ResultRow> results = new ArrayList<>();
+            for (final TestResult testResult : testRunResult.results().values()) {
+                results.add(new ResultRow(orderIndex.getOrDefault(testResult.name(), -1), testResult.name(),
+                                          (float) testResult.time(), String.valueOf(testResult.result())));
+            }
+
+            return new Rows(testRunResult.id(), results);
+        }
+
+        private final String id;
+        private final List<ResultRow> results;
+
+        private Rows(final String id, final List<ResultRow> results) {
+            this.id = id;
+            this.results = results;
+        }
+    }
+
+    private static class ResultRow {
+        private final int orderIndex;
+        private final String name;
+        private final float time;
+        private final String result;
+
+        private ResultRow(final int orderIndex, final String name, final float time, final String result) {
+            this.orderIndex = orderIndex;
+            this.name = name;
+            this.time = time;
+            this.result = result;
+        }
+    }
+}
@@ -79,8 +79,11 @@ public interface StartsConstants {
     String ZLC_FILE = "deps.zlc";
     String AFFECTED_TEST = "affected-tests";
     String FLAKY_TEST = "flaky-test-candidates";
+    String FLAKY_TEST_METHODS = "flaky-test-method-candidates";
     String ALL_TEST = "all-tests";
     String CLASSES_WITH_STATICFIELDS = "affected-classes-with-static-fields";
+    String STATIC_FIELD_INDEX = "static-field-index";
+    String CALL_GRAPH_CACHE = "call-graph-cache";
 
 
 }
@@ -0,0 +1,293 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import com.google.gson.Gson;
+import edu.illinois.cs.dt.tools.constants.StartsConstants;
+import edu.illinois.cs.dt.tools.utility.MD5;
+import edu.illinois.starts.asm.ClassReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The transitive closures of CallGraphGenerator, saved per entry class (the class whose public methods are the
+ * entry points) together with the class files and jars ("units") that the closure went through.
+ *
+ * A class file unit is checked by its MD5, a jar by its size and modification time. A cached class is only
+ * recomputed if one of its units changed or went away, which covers the class itself changing and the classes
+ * it calls changing. New classes are always computed. The call graph is not rebuilt for unchanged callers of new
+ * overriding methods, which only matters for virtual calls into classes that did not exist before.
+ *
+ * Each class keeps the names of the methods its closures reach once, and the closures as numbers into that list,
+ * so the closures are never held (or saved) as sets of strings; see methodClosure.
+ */
+public class CallGraphCache {
+    private static final Gson GSON = new Gson();
+    // Caches written with another version are rebuilt
+    private static final int VERSION = 2;
+
+    public static CallGraphCache load(final Path path) {
+        Cache cache = null;
+
+        if (Files.exists(path)) {
+            try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                cache = GSON.fromJson(reader, Cache.class);
+            } catch (Exception e) {
+                System.out.println("[WARNING] Could not read call graph cache " + path + ", rebuilding it: " + e);
+            }
+        }
+
+        if (cache != null && cache.version != VERSION) {
+            System.out.println("[INFO] Call graph cache " + path + " is from another version, rebuilding it.");
+            cache = null;
+        }
+
+        if (cache == null) {
+            return new CallGraphCache(path, new Cache());
+        }
+
+        cache.internMethods();
+        return new CallGraphCache(path, cache);
+    }
+
+    private final Path path;
+    private final Cache cache;
+
+    // Key: class name (as in convertToFullClassName). Value: the unit (class file or jar) it is in
+    private final Map<String, String> classUnits = new HashMap<>();
+    // Key: unit. Value: its checksum now
+    private final Map<String, String> unitChecksums = new HashMap<>();
+
+    private CallGraphCache(final Path path, final Cache cache) {
+        this.path = path;
+        this.cache = cache;
+    }
+
+    /**
+     * Reads which classes are in the scope and computes the checksums of the class files and jars they are in.
+     *
+     * @param classPaths The application scope (as given to makeJavaBinaryAnalysisScope)
+     */
+    public void scan(final List<String> classPaths) throws IOException {
+        for (final String classPath : classPaths) {
+            for (final String elem : classPath.split(File.pathSeparator)) {
+                if (!elem.isEmpty()) {
+                    scanElement(Paths.get(elem).toAbsolutePath());
+                }
+            }
+        }
+    }
+
+    private void scanElement(final Path elem) throws IOException {
+        if (Files.isDirectory(elem)) {
+            try (final Stream<Path> paths = Files.walk(elem)) {
+                for (final Path classFile : paths.filter(p -> p.toString().endsWith(StartsConstants.CLASS_EXTENSION)).collect(Collectors.toList())) {
+                    final String relative = elem.relativize(classFile).toString();
+                    addClass(relative.substring(0, relative.length() - StartsConstants.CLASS_EXTENSION.length())
+                            .replace(File.separatorChar, '.'), classFile.toString(), MD5.md5(classFile));
+                }
+            }
+        } else if (elem.toString().endsWith(StartsConstants.JAR_EXTENSION)) {
+            final String checksum = Files.size(elem) + StartsConstants.COLON_WO_SPACE + Files.getLastModifiedTime(elem).toMillis();
+
+            try (final JarFile jarFile = new JarFile(elem.toFile())) {
+                final Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    final String name = entries.nextElement().getName();
+                    if (name.endsWith(StartsConstants.CLASS_EXTENSION)) {
+                        addClass(name.substring(0, name.length() - StartsConstants.CLASS_EXTENSION.length()).replace('/', '.'),
+                                elem.toString(), checksum);
+                    }
+                }
+            }
+        } else if (elem.toString().endsWith(StartsConstants.CLASS_EXTENSION) && Files.exists(elem)) {
+            // A single class file, so the name has to come from the class itself
+            try (final InputStream in = Files.newInputStream(elem)) {
+                addClass(new ClassReader(in).getClassName().replace('/', '.'), elem.toString(), MD5.md5(elem));
+            }
+        }
+    }
+
+    private void addClass(final String className, final String unit, final String checksum) {
+        classUnits.putIfAbsent(className, unit);
+        unitChecksums.put(unit, checksum);
+    }
+
+    /**
+     * @return The classes in the scope whose closures have to be computed (again)
+     */
+    public Set<String> staleClasses() {
+        // Classes that are gone from the scope are dropped
+        cache.classes.keySet().retainAll(classUnits.keySet());
+
+        final Set<String> stale = new HashSet<>();
+        for (final String className : classUnits.keySet()) {
+            final CachedClass cached = cache.classes.get(className);
+
+            if (cached == null || !unchanged(cached.units)) {
+                stale.add(className);
+            }
+        }
+        return stale;
+    }
+
+    private boolean unchanged(final Map<String, String> units) {
+        for (final Map.Entry<String, String> unit : units.entrySet()) {
+            if (!unit.getValue().equals(unitChecksums.get(unit.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets what is cached for the class, before its closures are computed again.
+     */
+    public void reset(final String className) {
+        final CachedClass cached = new CachedClass();
+        addUnit(cached, className);
+        cache.classes.put(className, cached);
+    }
+
+    /**
+     * Adds closures of entry methods declared in the class. These can also come from the call graph of a
+     * subclass, because inherited methods are entry points too.
+     *
+     * @param closures Key: entry method (class:method). Value: the methods reachable from it
+     */
+    public void add(final String className, final Map<String, Set<String>> closures) {
+        final CachedClass cached = cache.classes.computeIfAbsent(className, c -> new CachedClass());
+
+        addUnit(cached, className);
+        for (final Map.Entry<String, Set<String>> closure : closures.entrySet()) {
+            if (cached.reachable.containsKey(closure.getKey())) {
+                continue;
+            }
+
+            final int[] ids = new int[closure.getValue().size()];
+            int i = 0;
+            for (final String method : closure.getValue()) {
+                ids[i++] = cached.id(method);
+                addUnit(cached, MethodClosure.className(method));
+            }
+            cached.reachable.put(closure.getKey(), ids);
+        }
+    }
+
+    private void addUnit(final CachedClass cached, final String className) {
+        final String unit = classUnits.get(className);
+
+        // Classes outside of the scope (e.g., the JDK) are not tracked
+        if (unit != null) {
+            cached.units.put(unit, unitChecksums.get(unit));
+        }
+    }
+
+    /**
+     * @param entryClasses The classes whose entry methods to include (e.g., the test classes)
+     * @return The closures of the entry methods declared in the classes, as getTransistiveClosureMap would give them
+     */
+    public MethodClosure methodClosure(final Set<String> entryClasses) {
+        final List<CachedClass> included = new ArrayList<>();
+        final Set<String> names = new TreeSet<>();
+
+        for (final String entryClass : entryClasses) {
+            final CachedClass cached = cache.classes.get(entryClass);
+
+            if (cached != null) {
+                included.add(cached);
+                names.addAll(cached.methods);
+                names.addAll(cached.reachable.keySet());
+            }
+        }
+
+        final MethodClosure closure = new MethodClosure(names);
+        for (final CachedClass cached : included) {
+            // Numbers in the class's own method list to numbers in the closure
+            final int[] ids = new int[cached.methods.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = closure.id(cached.methods.get(i));
+            }
+
+            for (final Map.Entry<String, int[]> entry : cached.reachable.entrySet()) {
+                final BitSet reachable = new BitSet(closure.size());
+                for (final int id : entry.getValue()) {
+                    reachable.set(ids[id]);
+                }
+                closure.setReachable(entry.getKey(), reachable);
+            }
+        }
+
+        return closure;
+    }
+
+    public void save() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        cache.version = VERSION;
+        try (final BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            GSON.toJson(cache, writer);
+        }
+    }
+
+    private static class Cache {
+        // Not set when constructed, so a cache without it (from an older version) reads as 0
+        private int version;
+        // Key: entry class
+        private final Map<String, CachedClass> classes = new HashMap<>();
+
+        // The same method shows up in the lists of many classes, so keep one copy of each name
+        private void internMethods() {
+            final Map<String, String> names = new HashMap<>();
+
+            for (final CachedClass cached : classes.values()) {
+                cached.methods.replaceAll(name -> names.computeIfAbsent(name, n -> n));
+            }
+        }
+    }
+
+    private static class CachedClass {
+        // Key: unit. Value: its checksum when the closures were computed
+        private final Map<String, String> units = new HashMap<>();
+        // The methods reached by the closures of this class, each once
+        private final List<String> methods = new ArrayList<>();
+        // Key: entry method (class:method). Value: the methods reachable from it, as indices into methods
+        private final Map<String, int[]> reachable = new HashMap<>();
+        private transient Map<String, Integer> methodIds = null;
+
+        private int id(final String method) {
+            if (methodIds == null) {
+                methodIds = new HashMap<>();
+                for (int i = 0; i < methods.size(); i++) {
+                    methodIds.put(methods.get(i), i);
+                }
+            }
+
+            return methodIds.computeIfAbsent(method, m -> {
+                methods.add(m);
+                return methods.size() - 1;
+            });
+        }
+    }
+}
@@ -9,6 +9,10 @@ import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
 import com.ibm.wala.ipa.cha.ClassHierarchy;
 import com.ibm.wala.ipa.callgraph.impl.DefaultEntrypoint;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAFieldAccessInstruction;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.types.annotations.Annotation;
 import com.ibm.wala.util.config.AnalysisScopeReader;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.intset.OrdinalSet;
@@ -17,13 +21,24 @@ import edu.illinois.cs.dt.tools.constants.StartsConstants;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 
 public class CallGraphGenerator {
+    // Stands for the static fields of a class in the closures ("class:<staticfields>"), so that reading or writing
+    // one of them reaches the class just like calling one of its methods
+    public static final String STATIC_FIELDS = "<staticfields>";
+
+    private static final Set<String> LIFECYCLE_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            "Lorg/junit/Before", "Lorg/junit/After", "Lorg/junit/BeforeClass", "Lorg/junit/AfterClass",
+            "Lorg/junit/jupiter/api/BeforeEach", "Lorg/junit/jupiter/api/AfterEach",
+            "Lorg/junit/jupiter/api/BeforeAll", "Lorg/junit/jupiter/api/AfterAll"));
+    private static final Set<String> JUNIT3_LIFECYCLE_METHODS = new HashSet<>(Arrays.asList("setUp", "tearDown"));
 
     public static <T> Set<T> iteratorToSet(Iterator<T> iter) {
         Set<T> set = HashSetFactory.make();
@@ -67,11 +82,35 @@ public class CallGraphGenerator {
         return klass.getClassLoader().getReference().equals(ClassLoaderReference.Application);
     }
 
+    /**
+     * Check if given method runs around the tests of its class (@Before, @After, ... or JUnit 3 setUp/tearDown).
+     *
+     * @param method Method to check
+     * @return true if method is a lifecycle method, false otherwise
+     */
+    private static boolean isLifecycleMethod(final IMethod method) {
+        if (!isApplication(method.getDeclaringClass()) || method.isAbstract()) { return false; }
+        if (JUNIT3_LIFECYCLE_METHODS.contains(method.getName().toString())) { return true; }
+        for (Annotation annotation : method.getAnnotations()) {
+            if (LIFECYCLE_ANNOTATIONS.contains(annotation.getType().getName().toString())) { return true; }
+        }
+        return false;
+    }
+
     public static ArrayList<Entrypoint> getEntryPoints(ClassHierarchy cha) {
+        return getEntryPoints(cha, klass -> true);
+    }
+
+    /**
+     * The public methods (and the lifecycle methods, whatever their visibility) of the public application classes
+     * that pass the filter.
+     */
+    public static ArrayList<Entrypoint> getEntryPoints(ClassHierarchy cha, Predicate<IClass> filter) {
         return StreamSupport.stream(cha.spliterator(), false)
                 .filter(CallGraphGenerator::isPublicClass)
+                .filter(filter)
                 .flatMap(klass -> klass.getAllMethods().parallelStream())
-                .filter(CallGraphGenerator::isPublicMethod)
+                .filter(m -> isPublicMethod(m) || isLifecycleMethod(m))
                 .map(m -> new DefaultEntrypoint(m, cha))
                 .collect(Collectors.toCollection(ArrayList::new));
     }
@@ -85,6 +124,14 @@ public class CallGraphGenerator {
 
     public static CallGraph buildCallGraph(String targetClassPath, List<String> classPaths)
             throws IOException, ClassHierarchyException, CallGraphBuilderCancelException {
+        return buildCallGraph(targetClassPath, classPaths, klass -> true);
+    }
+
+    /**
+     * Builds the call graph with only the public methods of the classes that pass the filter as entry points.
+     */
+    public static CallGraph buildCallGraph(String targetClassPath, List<String> classPaths, Predicate<IClass> entryClasses)
+            throws IOException, ClassHierarchyException, CallGraphBuilderCancelException {
         ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
         File exclusionFile = new File(Objects.requireNonNull(classLoader.getResource("Java60RegressionExclusions.txt")).getFile());
 
@@ -97,7 +144,7 @@ public class CallGraphGenerator {
         // ClassHierarchy cha = ClassHierarchyFactory.makeWithRoot(scope);
         ClassHierarchy cha = ClassHierarchyFactory.make(scope);
 
-        ArrayList<Entrypoint> entryPoints = getEntryPoints(cha);
+        ArrayList<Entrypoint> entryPoints = getEntryPoints(cha, entryClasses);
         AnalysisOptions options = new AnalysisOptions(scope, entryPoints);
         CallGraphBuilder builder = Util.makeZeroCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
         return builder.makeCallGraph(options, null);
@@ -122,7 +169,7 @@ public class CallGraphGenerator {
     public static Map<String, Set<String>> getSubTransitiveClosure(Set<String> classScope, Map<String, Set<String>> callGraphTransitiveClosure) {
         Map<String, Set<String>> resultMap = new HashMap<>();
         for (Map.Entry<String, Set<String>> entry: callGraphTransitiveClosure.entrySet()) {
-            String klass = entry.getKey().substring(0, entry.getKey().lastIndexOf(StartsConstants.DOT));
+            String klass = MethodClosure.className(entry.getKey());
             if (classScope.contains(klass)) {
                 resultMap.putIfAbsent(entry.getKey(), entry.getValue());
             }
@@ -133,7 +180,7 @@ public class CallGraphGenerator {
     public static Set<String> getReachableMethodsToDstClasses(Set<String> srcMethods, Set<String> dstClasses) {
         Set<String> result = new HashSet<>();
         for (String dstClass:dstClasses){
-            for (String srcMethod: srcMethods) { if (srcMethod.startsWith(dstClass)) { result.add(srcMethod); } }
+            for (String srcMethod: srcMethods) { if (MethodClosure.className(srcMethod).equals(dstClass)) { result.add(srcMethod); } }
         }
         return result;
     }
@@ -141,7 +188,7 @@ public class CallGraphGenerator {
     public static Set<String> getReachableMethodsToDstClasses(Map<String, Set<String>> callGraphTransitiveClosure, String srcClass, Set<String> dstClasses) {
         Set<String> result = new HashSet<>();
         for (Map.Entry<String, Set<String>> entry: callGraphTransitiveClosure.entrySet()) {
-            String klass = entry.getKey().substring(0, entry.getKey().lastIndexOf(StartsConstants.DOT));
+            String klass = MethodClosure.className(entry.getKey());
             if(klass.equals(srcClass)) {
                 result.addAll(getReachableMethodsToDstClasses(entry.getValue(), dstClasses));
             }
@@ -151,35 +198,163 @@ public class CallGraphGenerator {
 
     public static Map<String, Set<String>> getTransistiveClosureMap(String targetClassPath, List<String> classPathsScope)
             throws IOException, ClassHierarchyException, CallGraphBuilderCancelException {
+        return getTransistiveClosureMap(buildCallGraph(targetClassPath, classPathsScope));
+    }
+
+    /*
+     * The closures of getTransistiveClosureMap for the entry methods of entryClasses, with each method a number and each
+     * closure a BitSet. Only builds the call graph for the classes that changed (or call classes that changed) since
+     * the closures were saved in the cache file
+     */
+    public static MethodClosure getMethodClosure(String targetClassPath, List<String> classPathsScope, Path cachePath,
+                                                 Set<String> entryClasses)
+            throws IOException, ClassHierarchyException, CallGraphBuilderCancelException {
+        CallGraphCache cache = CallGraphCache.load(cachePath);
+        List<String> scope = new ArrayList<>(classPathsScope);
+        scope.add(0, targetClassPath);
+        cache.scan(scope);
+
+        Set<String> staleClasses = cache.staleClasses();
+        System.out.println("[INFO] Computing call graph closures for " + staleClasses.size() + " classes, the others are cached.");
+        if (!staleClasses.isEmpty()) {
+            CallGraph cg = buildCallGraph(targetClassPath, classPathsScope,
+                    klass -> staleClasses.contains(convertToFullClassName(klass.getName().toString())));
+            for (String staleClass: staleClasses) { cache.reset(staleClass); }
+            Map<String, Map<String, Set<String>>> closuresByClass = new HashMap<>();
+            for (Map.Entry<String, Set<String>> entry: getTransistiveClosureMap(cg).entrySet()) {
+                String klass = entry.getKey().substring(0, entry.getKey().lastIndexOf(StartsConstants.COLON_WO_SPACE));
+                closuresByClass.computeIfAbsent(klass, k -> new HashMap<>()).put(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<String, Map<String, Set<String>>> entry: closuresByClass.entrySet()) {
+                cache.add(entry.getKey(), entry.getValue());
+            }
+        }
+        cache.save();
+
+        return cache.methodClosure(entryClasses);
+    }
+
+    private static Map<String, Set<String>> getTransistiveClosureMap(CallGraph cg) {
         Map<String, Set<String>> result = new HashMap<>();
-        CallGraph cg = buildCallGraph(targetClassPath, classPathsScope);
+        for (Map.Entry<CGNode, Set<String>> entry : getEntryClosures(cg).entrySet()) {
+            result.putIfAbsent(methodName(entry.getKey()), entry.getValue());
+        }
+        return result;
+    }
+
+    /*
+     * For each entry node, the methods reachable from it and from the lifecycle methods of its class (the lifecycle
+     * methods included), and the STATIC_FIELDS of the classes whose static fields any of these read or write
+     */
+    private static Map<CGNode, Set<String>> getEntryClosures(CallGraph cg) {
         Map<CGNode, OrdinalSet<CGNode>> transitiveClosure = getCallGraphTransitiveClosure(cg);
+        Map<CGNode, Set<String>> staticAccesses = new HashMap<>();
+        Map<IClass, List<CGNode>> lifecycleNodes = new HashMap<>();
+        Map<CGNode, Set<String>> result = new LinkedHashMap<>();
         for (CGNode entryNode : cg.getEntrypointNodes()) {
-            String entryElem = convertToFullClassName(entryNode.getMethod().getDeclaringClass().getName().toString())+StartsConstants.COLON_WO_SPACE+entryNode.getMethod().getName().toString();
-            Set<String> calledMethods = new HashSet<>();
-            OrdinalSet<CGNode> reachableNodes = transitiveClosure.get(entryNode);
-            Iterator<CGNode> nodeSetIter = reachableNodes.iterator();
-            while( nodeSetIter.hasNext()){
-                CGNode node = nodeSetIter.next();
-                String elem = convertToFullClassName(node.getMethod().getDeclaringClass().getName().toString())+StartsConstants.COLON_WO_SPACE+node.getMethod().getName().toString();
-                calledMethods.add(elem);
+            Set<String> reached = new HashSet<>(staticAccesses.computeIfAbsent(entryNode, CallGraphGenerator::getStaticAccesses));
+            addReachable(reached, transitiveClosure.get(entryNode), staticAccesses);
+            if (!isLifecycleMethod(entryNode.getMethod())) {
+                IClass klass = entryNode.getMethod().getDeclaringClass();
+                for (CGNode lifecycleNode : lifecycleNodes.computeIfAbsent(klass, k -> getLifecycleNodes(cg, k))) {
+                    reached.add(methodName(lifecycleNode));
+                    reached.addAll(staticAccesses.computeIfAbsent(lifecycleNode, CallGraphGenerator::getStaticAccesses));
+                    addReachable(reached, transitiveClosure.get(lifecycleNode), staticAccesses);
+                }
+            }
+            result.put(entryNode, reached);
+        }
+        return result;
+    }
+
+    private static void addReachable(Set<String> reached, OrdinalSet<CGNode> nodes, Map<CGNode, Set<String>> staticAccesses) {
+        if (nodes == null) { return; }
+        for (CGNode node : nodes) {
+            reached.add(methodName(node));
+            reached.addAll(staticAccesses.computeIfAbsent(node, CallGraphGenerator::getStaticAccesses));
+        }
+    }
+
+    private static List<CGNode> getLifecycleNodes(CallGraph cg, IClass klass) {
+        List<CGNode> result = new ArrayList<>();
+        for (IMethod method : klass.getAllMethods()) {
+            if (isLifecycleMethod(method)) { result.addAll(cg.getNodes(method.getReference())); }
+        }
+        return result;
+    }
+
+    /*
+     * class:STATIC_FIELDS for every class whose static fields the node reads or writes directly (getstatic/putstatic)
+     */
+    private static Set<String> getStaticAccesses(CGNode node) {
+        Set<String> result = new HashSet<>();
+        if (!isApplication(node.getMethod().getDeclaringClass())) { return result; }
+        IR ir = node.getIR();
+        if (ir == null) { return result; }
+        for (SSAInstruction inst : ir.getInstructions()) {
+            if (inst instanceof SSAFieldAccessInstruction && ((SSAFieldAccessInstruction) inst).isStatic()) {
+                String klass = ((SSAFieldAccessInstruction) inst).getDeclaredField().getDeclaringClass().getName().toString();
+                result.add(convertToFullClassName(klass)+StartsConstants.COLON_WO_SPACE+STATIC_FIELDS);
             }
-            result.putIfAbsent(entryElem, calledMethods);
         }
         return result;
     }
 
+    private static String methodName(CGNode node) {
+        return convertToFullClassName(node.getMethod().getDeclaringClass().getName().toString())+StartsConstants.COLON_WO_SPACE+node.getMethod().getName().toString();
+    }
+
     public static Set<String> getFlakyTestMethodCandidates(Map<String, Set<String>> transistiveClosureMap,
                                                            Set<String> flakyTestCandidates, Set<String> classWithStaticFields) {
-        Set<String> result = new HashSet<>();
-        Map<String, Set<String>> subTransitiveClosure = getSubTransitiveClosure(flakyTestCandidates, transistiveClosureMap);
+        return getFlakyTestMethodCandidates(MethodClosure.of(getSubTransitiveClosure(flakyTestCandidates, transistiveClosureMap)),
+                flakyTestCandidates, classWithStaticFields);
+    }
+
+    public static Set<String> getFlakyTestMethodCandidates(MethodClosure methodClosure,
+                                                           Set<String> flakyTestCandidates, Set<String> classWithStaticFields) {
+        BitSet dstMethods = methodClosure.methodsOf(classWithStaticFields);
+        BitSet result = new BitSet(methodClosure.size());
         for (String testCandid: flakyTestCandidates) {
-            Set<String> testMethodCandidates = getReachableMethodsToDstClasses(subTransitiveClosure, testCandid, classWithStaticFields);
-            result.addAll(testMethodCandidates);
+            result.or(methodClosure.reachableIn(testCandid, dstMethods));
+        }
+        return methodClosure.names(result);
+    }
+
+    /*
+     * The test methods (class.method, as in the test order) of the test classes that reach a method or a static field
+     * of a class with static fields, directly or through a lifecycle method. Only methods declared in the test classes
+     * themselves are found
+     */
+    public static Set<String> getFlakyTestMethods(MethodClosure methodClosure, Set<String> testClasses, Set<String> classWithStaticFields) {
+        BitSet dstMethods = methodClosure.methodsOf(classWithStaticFields);
+        Set<String> result = new HashSet<>();
+        for (String testClass: testClasses) {
+            for (String entryMethod: methodClosure.entryMethods(testClass)) {
+                if (methodClosure.reaches(entryMethod, dstMethods)) {
+                    result.add(entryMethod.replace(StartsConstants.COLON_WO_SPACE, StartsConstants.DOT));
+                }
+            }
         }
         return result;
     }
 
+    /*
+     * The test methods of the test classes that reach a class with static fields that one of the given test methods
+     * reaches, i.e., the tests that could pollute (or clean) the static state of the given ones
+     */
+    public static Set<String> getPolluterTestMethods(MethodClosure methodClosure, Set<String> testClasses,
+                                                     Set<String> testMethods, Set<String> classWithStaticFields) {
+        BitSet reached = new BitSet(methodClosure.size());
+        for (String testMethod: testMethods) {
+            int sepPos = testMethod.lastIndexOf(StartsConstants.DOT);
+            reached.or(methodClosure.reachable(testMethod.substring(0, sepPos)+StartsConstants.COLON_WO_SPACE+testMethod.substring(sepPos+1)));
+        }
+        reached.and(methodClosure.methodsOf(classWithStaticFields));
+        Set<String> reachedClasses = new HashSet<>();
+        for (String method: methodClosure.names(reached)) { reachedClasses.add(MethodClosure.className(method)); }
+        return getFlakyTestMethods(methodClosure, testClasses, reachedClasses);
+    }
+
 //    public Map<IClass, Set<IMethod>> getMethodNamesInJar(String JarFilePath) throws IOException, ClassHierarchyException {
 //        Map<IClass, Set<IMethod>> result = new HashMap<>();
 //        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
@@ -0,0 +1,134 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import edu.illinois.cs.dt.tools.constants.StartsConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Where the classes of a project come from: the jars on its classpath and the class files under its directory.
+ *
+ * Every jar and the project directory are read once, in parallel, into maps, so finding a class is a map lookup
+ * instead of comparing it to every class on the classpath. As in ODFlakyTestFinder.findAffectedClassPaths, a class
+ * in a jar wins over a project class file with the same name. If several jars have the class, the first one on the
+ * classpath wins.
+ */
+public class ClasspathScanner {
+    /**
+     * @param classpath The classpath elements; only the jars are read
+     * @param projectDir The directory whose class files are the project's classes
+     */
+    public static ClasspathScanner scan(final List<String> classpath, final File projectDir) {
+        final CompletableFuture<Map<String, List<String>>> projectClasses =
+                CompletableFuture.supplyAsync(() -> projectClasses(projectDir));
+
+        final List<String> jars = classpath.stream()
+                .filter(elem -> elem.endsWith(StartsConstants.JAR_EXTENSION))
+                .collect(Collectors.toList());
+
+        // Read in parallel, but merge in classpath order so the first jar wins
+        final List<List<String>> jarEntries = jars.parallelStream()
+                .map(ClasspathScanner::classEntries)
+                .collect(Collectors.toList());
+
+        final Map<String, String> jarClasses = new HashMap<>();
+        for (int i = 0; i < jars.size(); i++) {
+            for (final String entry : jarEntries.get(i)) {
+                jarClasses.putIfAbsent(entry, jars.get(i) + StartsConstants.EXCLAMATION + entry);
+            }
+        }
+
+        return new ClasspathScanner(jarClasses, projectClasses.join());
+    }
+
+    private static List<String> classEntries(final String jar) {
+        final List<String> entries = new ArrayList<>();
+
+        try (final JarFile jarFile = new JarFile(jar)) {
+            final Enumeration<JarEntry> jarEntries = jarFile.entries();
+            while (jarEntries.hasMoreElements()) {
+                final String name = jarEntries.nextElement().getName();
+                if (name.endsWith(StartsConstants.CLASS_EXTENSION)) {
+                    entries.add(name);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("[WARNING] Could not read jar " + jar + ": " + e);
+        }
+
+        return entries;
+    }
+
+    /**
+     * @return The class files under the directory, by file name
+     */
+    private static Map<String, List<String>> projectClasses(final File projectDir) {
+        if (!projectDir.isDirectory()) {
+            return Collections.emptyMap();
+        }
+
+        try (final Stream<Path> paths = Files.walk(projectDir.toPath())) {
+            return paths.filter(p -> p.toString().endsWith(StartsConstants.CLASS_EXTENSION) && Files.isRegularFile(p))
+                    .map(p -> p.toAbsolutePath().toString())
+                    .collect(Collectors.groupingBy(ClasspathScanner::fileName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String fileName(final String path) {
+        return path.substring(path.lastIndexOf(File.separatorChar) + 1);
+    }
+
+    // Key: jar entry of the class (e.g., a/b/C.class). Value: jar!entry
+    private final Map<String, String> jarClasses;
+    // Key: name of the class file (e.g., C.class). Value: the class files with that name
+    private final Map<String, List<String>> projectClasses;
+
+    private ClasspathScanner(final Map<String, String> jarClasses, final Map<String, List<String>> projectClasses) {
+        this.jarClasses = jarClasses;
+        this.projectClasses = projectClasses;
+    }
+
+    /**
+     * @param className The binary name of the class (e.g., a.b.C)
+     * @return jar!entry if a jar has the class, else the path of the project class file, else null
+     */
+    public String find(final String className) {
+        final String jarClass = jarClasses.get(className.replace(StartsConstants.DOT, StartsConstants.BACKSLASH) + StartsConstants.CLASS_EXTENSION);
+        if (jarClass != null) {
+            return jarClass;
+        }
+
+        final String classFile = className.replace(StartsConstants.DOT, File.separator) + StartsConstants.CLASS_EXTENSION;
+        for (final String path : projectClasses.getOrDefault(fileName(classFile), Collections.emptyList())) {
+            if (path.endsWith(classFile)) {
+                return path;
+            }
+        }
+
+        return null;
+    }
+
+    public int jarClasses() {
+        return jarClasses.size();
+    }
+
+    public int projectClasses() {
+        return projectClasses.values().stream().mapToInt(List::size).sum();
+    }
+}
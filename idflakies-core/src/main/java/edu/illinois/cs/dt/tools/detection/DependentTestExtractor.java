@@ -1,6 +1,5 @@
 package edu.illinois.cs.dt.tools.detection;
 
-import com.google.gson.Gson;
 import com.reedoei.eunomia.collections.ListEx;
 import com.reedoei.eunomia.io.files.FileUtil;
 import com.reedoei.eunomia.util.StandardMain;
@@ -10,7 +9,6 @@ import edu.illinois.cs.dt.tools.detection.classifiers.NonorderClassifier;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 import edu.illinois.cs.dt.tools.runner.data.DependentTestList;
 import edu.illinois.cs.dt.tools.runner.data.TestRun;
-import edu.illinois.cs.dt.tools.utility.MD5;
 import edu.illinois.cs.dt.tools.utility.TestRunParser;
 import edu.illinois.cs.testrunner.data.results.Result;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
@@ -103,7 +101,7 @@ public class DependentTestExtractor extends StandardMain {
 
     private boolean isNew(final DependentTestList dependentTestList, final DependentTest dependentTest) {
         final BiPredicate<TestRun, TestRun> pred =
-                (a, b) -> MD5.hashOrder(a.order()).equals(MD5.hashOrder(b.order()));
+                (a, b) -> a.order().equals(b.order());
 
         return dependentTestList.dts().stream()
                 .anyMatch(dt -> !pred.test(dt.intended(), dependentTest.intended()) ||
@@ -117,7 +115,7 @@ public class DependentTestExtractor extends StandardMain {
 
         if (Files.exists(outputFile)) {
             try {
-                final DependentTestList l = new Gson().fromJson(FileUtil.readFile(outputFile), DependentTestList.class);
+                final DependentTestList l = DependentTestList.fromJson(FileUtil.readFile(outputFile));
 
                 if (l != null) {
                     for (final DependentTest dependentTest : l.dts()) {
@@ -132,7 +130,7 @@ public class DependentTestExtractor extends StandardMain {
         System.out.println("[INFO] Writing dt list to (" + extracted.size() + " tests) to: " + outputFile);
 
         try (final FileWriter writer = new FileWriter(outputFile.toFile())) {
-            new Gson().toJson(extracted, writer);
+            writer.write(extracted.toString());
         }
     }
 
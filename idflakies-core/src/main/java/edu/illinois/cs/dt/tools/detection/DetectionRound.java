@@ -1,15 +1,50 @@
 package edu.illinois.cs.dt.tools.detection;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.reedoei.eunomia.io.files.FileUtil;
+import edu.illinois.cs.dt.tools.runner.data.CompactFormat;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 import edu.illinois.cs.dt.tools.runner.data.DependentTestList;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Simple wrapper around the results of each round run by an ExecutingDetector
  */
 public class DetectionRound {
+    public static DetectionRound fromFile(final Path path) throws IOException {
+        return fromJson(FileUtil.readFile(path));
+    }
+
+    /**
+     * Reads both the compact format (see CompactFormat) and the old, plain Gson format.
+     */
+    public static DetectionRound fromJson(final String json) {
+        final JsonObject obj = CompactFormat.parse(json);
+
+        if (obj == null) {
+            return null;
+        } else if (!CompactFormat.isCompact(obj)) {
+            return new Gson().fromJson(obj, DetectionRound.class);
+        }
+
+        final CompactFormat.Decoder decoder = new CompactFormat.Decoder(obj);
+        final List<String> testRunIds = new ArrayList<>();
+        for (final JsonElement id : obj.getAsJsonArray("testRunIds")) {
+            testRunIds.add(id.getAsString());
+        }
+
+        return new DetectionRound(testRunIds,
+                decoder.decode(obj.getAsJsonObject("unfilteredTests").getAsJsonArray("dts")),
+                decoder.decode(obj.getAsJsonObject("filteredTests").getAsJsonArray("dts")),
+                obj.get("roundTime").getAsDouble());
+    }
+
     private final List<String> testRunIds;
 
     private final DependentTestList unfilteredTests;
@@ -41,6 +76,22 @@ public class DetectionRound {
 
     @Override
     public String toString() {
-        return new Gson().toJson(this);
+        // Both lists share the dictionary, since the filtered tests are a subset of the unfiltered ones
+        final CompactFormat.Encoder encoder = new CompactFormat.Encoder();
+        final JsonObject json = new JsonObject();
+
+        json.add("testRunIds", new Gson().toJsonTree(testRunIds));
+
+        final JsonObject unfiltered = new JsonObject();
+        unfiltered.add("dts", encoder.encode(unfilteredTests.dts()));
+        json.add("unfilteredTests", unfiltered);
+
+        final JsonObject filtered = new JsonObject();
+        filtered.add("dts", encoder.encode(filteredTests.dts()));
+        json.add("filteredTests", filtered);
+
+        json.addProperty("roundTime", roundTime);
+
+        return encoder.writeTo(json).toString();
     }
 }
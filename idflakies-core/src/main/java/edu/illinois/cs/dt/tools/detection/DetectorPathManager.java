@@ -16,6 +16,9 @@ public class DetectorPathManager extends PathManager {
     public static final Path ORIGINAL_RESULTS_LOG = Paths.get("original-results-ids");
     public static final Path MVN_TEST_LOG = Paths.get("mvn-test.log");
     public static final Path MVN_TEST_TIME_LOG = Paths.get("mvn-test-time.log");
+    public static final Path TIME_BANK = Paths.get("detector-time-bank");
+    public static final Path SHARDS = Paths.get("shards");
+    public static final Path SEED = Paths.get("order-seed");
 
     public static Path detectionResults() {
         return path(DETECTION_RESULTS);
@@ -72,4 +75,16 @@ public class DetectorPathManager extends PathManager {
     public static Path mvnTestTimeLog() {
         return parentPath(MVN_TEST_TIME_LOG);
     }
+
+    public static Path timeBank() {
+        return parentPath(TIME_BANK);
+    }
+
+    public static Path shardsPath() {
+        return path(SHARDS);
+    }
+
+    public static Path seedPath() {
+        return path(SEED);
+    }
 }
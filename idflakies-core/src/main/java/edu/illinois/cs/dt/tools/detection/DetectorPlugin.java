@@ -6,6 +6,8 @@ import com.reedoei.eunomia.collections.ListEx;
 import edu.illinois.cs.dt.tools.constants.StartsConstants;
 import edu.illinois.cs.dt.tools.detection.detectors.Detector;
 import edu.illinois.cs.dt.tools.detection.detectors.DetectorFactory;
+import edu.illinois.cs.dt.tools.detection.detectors.ExecutingDetector;
+import edu.illinois.cs.dt.tools.detection.detectors.RoundBudget;
 import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
 import edu.illinois.cs.dt.tools.utility.ErrorLogger;
 import edu.illinois.cs.dt.tools.utility.GetMavenTestOrder;
@@ -119,14 +121,16 @@ public class DetectorPlugin extends TestPlugin {
 
         final double mainTimeout = Configuration.config().getProperty("detector.timeout", 6 * 3600.0); // 6 hours
 
+        // When ModuleScheduler runs several modules at once, each slot only has a share of all modules
+        final int slots = moduleSlots();
         double timeout =
-                Math.max(2.0, moduleTime * mainTimeout / totalTime);
+                Math.max(2.0, moduleTime * mainTimeout * slots / totalTime);
 
         // Can only happen when the totalTime is 0. This means it will occur for all projects.
         // In this case, just allocate equal time to everyone.
         if (Double.isNaN(timeout)) {
             if (csv.size() > 0) {
-                timeout = mainTimeout / csv.size();
+                timeout = mainTimeout * Math.min(slots, csv.size()) / csv.size();
             } else {
                 // This makes no sense, because this means there are no modules
                 throw new IllegalStateException("No modules/test times found in " + timeCsv);
@@ -139,6 +143,58 @@ public class DetectorPlugin extends TestPlugin {
         return (long) timeout; // Allocate time proportionally
     }
 
+    private void runDetector(final ProjectWrapper project, final List<String> tests, final int rounds) throws IOException {
+        final int shards = ShardManifest.plannedShards();
+
+        if (shards > 0) {
+            planShards(tests, rounds, shards);
+            return;
+        }
+
+        final Detector detector = withBudget(DetectorFactory.makeDetector(this.runner, tests, rounds), project, rounds);
+        TestPluginUtil.project.info("Created dependent test detector (" + detector.getClass() + ").");
+        detector.writeTo(outputPath);
+    }
+
+    /**
+     * Writes the manifests for a sharded run instead of running the detector (see ShardManifest).
+     */
+    private void planShards(final List<String> tests, final int rounds, final int shards) throws IOException {
+        final long seed = OrderGeneratorFactory.baseSeed();
+        final List<ShardManifest> manifests = ShardManifest.plan(DetectorFactory.detectorType(), tests, rounds, seed, shards);
+
+        for (final ShardManifest manifest : manifests) {
+            manifest.writeTo(DetectorPathManager.shardsPath().resolve("shard-" + manifest.shard() + ".json"));
+        }
+
+        TestPluginUtil.project.info("Wrote " + shards + " shard manifests for " + rounds + " rounds (seed " + seed + ") to "
+                + DetectorPathManager.shardsPath());
+    }
+
+    /**
+     * With dt.detector.adaptive, the detector stops once it stops finding new tests, and gets this module's
+     * share of detector.timeout plus whatever time earlier modules left over (see RoundBudget).
+     */
+    private Detector withBudget(final Detector detector, final ProjectWrapper project, final int rounds) throws IOException {
+        if (RoundBudget.enabled() && detector instanceof ExecutingDetector) {
+            ((ExecutingDetector) detector).withBudget(new RoundBudget(rounds, adaptiveTimeout(project), DetectorPathManager.timeBank()));
+        }
+
+        return detector;
+    }
+
+    private double adaptiveTimeout(final ProjectWrapper project) throws IOException {
+        final boolean hasTimeout = Configuration.config().properties().getProperty("detector.timeout") != null;
+        final Path timeCsv = getMavenProjectParent(project).getBasedir().toPath().resolve("module-test-time.csv");
+
+        if (hasTimeout && Files.isReadable(timeCsv)) {
+            return moduleTimeout(project);
+        }
+
+        // Without per-module times, the module gets as much time as its rounds take
+        return Double.NaN;
+    }
+
     private static double readRealTime(final Path path) throws IOException {
         for (final String line : Lists.reverse(Files.readAllLines(path))) {
             final String[] split = line.split(" ");
@@ -151,6 +207,13 @@ public class DetectorPlugin extends TestPlugin {
         return 0.0;
     }
 
+    /**
+     * The number of modules ModuleScheduler is running at the same time.
+     */
+    private static int moduleSlots() {
+        return Math.max(1, Configuration.config().getProperty("dt.detector.module_slots", 1));
+    }
+
     public static int moduleRounds(String coordinates) throws IOException {
         final boolean hasRounds = Configuration.config().properties().getProperty("dt.randomize.rounds") != null;
         final boolean hasTimeout = Configuration.config().properties().getProperty("detector.timeout") != null;
@@ -168,7 +231,7 @@ public class DetectorPlugin extends TestPlugin {
                     TestPluginUtil.project.info("TIMEOUT_VALUE: Using a timeout of "
                                                           + mainTimeout + ", and that the total mvn test time is: " + totalTime);
 
-                    timeoutRounds = (int) (mainTimeout / totalTime);
+                    timeoutRounds = (int) (mainTimeout / totalTime) * moduleSlots();
                 } else {
                     timeoutRounds = roundNum;
                     TestPluginUtil.project.info("TIMEOUT_VALUE specified as 0. " +
@@ -201,10 +264,19 @@ public class DetectorPlugin extends TestPlugin {
     }
 
     public void executeSelectedIdflakies(final ProjectWrapper project, Set<String> flakyTestCandidates, boolean runIdflakies) {
+        executeSelectedIdflakies(project, flakyTestCandidates, null, runIdflakies);
+    }
+
+    /**
+     * @param flakyTestMethodCandidates The test methods (class.method) of the candidate classes that reach a class with
+     *                                  static fields, or null to run every test of the candidate classes
+     */
+    public void executeSelectedIdflakies(final ProjectWrapper project, Set<String> flakyTestCandidates,
+                                         Set<String> flakyTestMethodCandidates, boolean runIdflakies) {
         long start = System.currentTimeMillis();
         final ErrorLogger logger = new ErrorLogger(project);
         this.coordinates = logger.coordinates();
-        logger.runAndLogError(() -> detectorExecuteWithSeltectedTests(logger, project, moduleRounds(coordinates), flakyTestCandidates, runIdflakies));
+        logger.runAndLogError(() -> detectorExecuteWithSeltectedTests(logger, project, moduleRounds(coordinates), flakyTestCandidates, flakyTestMethodCandidates, runIdflakies));
         long end = System.currentTimeMillis();
         List<String> runinngTime = new ArrayList<>();
         runinngTime.add(Writer.millsToSeconds(end - start));
@@ -212,7 +284,8 @@ public class DetectorPlugin extends TestPlugin {
     }
 
     private Void detectorExecuteWithSeltectedTests(final ErrorLogger logger, final ProjectWrapper project, final int rounds,
-                                                   Set<String> flakyTestCandidates, boolean runIdflakies) throws IOException, MojoExecutionException {
+                                                   Set<String> flakyTestCandidates, Set<String> flakyTestMethodCandidates,
+                                                   boolean runIdflakies) throws IOException, MojoExecutionException {
         Files.deleteIfExists(DetectorPathManager.errorPath());
         Files.createDirectories(DetectorPathManager.cachePath());
         Files.createDirectories(DetectorPathManager.detectionResults());
@@ -269,7 +342,7 @@ public class DetectorPlugin extends TestPlugin {
             this.runner = InstrumentingSmartRunner.fromRunner(runners.get(0));
         }
         List<String> allTests = getOriginalOrder(project, this.runner.framework());
-        final List<String> tests = filterOriginalOrder(allTests, flakyTestCandidates);
+        final List<String> tests = filterOriginalOrder(allTests, flakyTestCandidates, flakyTestMethodCandidates);
         System.out.println("[INFO] Getting original tests (" + allTests.size() + " tests).");
         System.out.println("[INFO] Getting filtered tests (" + tests.size() + " tests).");
 
@@ -282,9 +355,7 @@ public class DetectorPlugin extends TestPlugin {
             if (!tests.isEmpty()) {
 //            Files.createDirectories(outputPath);
 //            Files.write(DetectorPathManager.originalOrderPath(), String.join(System.lineSeparator(), allTests).getBytes());
-                final Detector detector = DetectorFactory.makeDetector(this.runner, tests, rounds);
-                TestPluginUtil.project.info("Created dependent test detector (" + detector.getClass() + ").");
-                detector.writeTo(outputPath);
+                runDetector(project, tests, rounds);
             } else {
                 String errorMsg = "Module has no tests, not running detector.";
                 TestPluginUtil.project.info(errorMsg);
@@ -294,12 +365,31 @@ public class DetectorPlugin extends TestPlugin {
         return null;
     }
 
-    private List<String> filterOriginalOrder(List<String> allTests, Set<String> flakyTestCandidates) {
+    /*
+     * Keeps the tests of the candidate classes. For classes with some method candidates, only those methods are kept:
+     * the other methods do not reach static state, so they can neither be polluted through it nor pollute it.
+     * Classes without any (e.g., whose test methods are all inherited) keep all their tests. Method candidates of
+     * other classes (potential polluters) are kept as well.
+     */
+    private List<String> filterOriginalOrder(List<String> allTests, Set<String> flakyTestCandidates, Set<String> flakyTestMethodCandidates) {
+        Set<String> classesWithMethods = new HashSet<>();
+        if (flakyTestMethodCandidates != null) {
+            for (String method: flakyTestMethodCandidates) {
+                classesWithMethods.add(method.substring(0, method.lastIndexOf(StartsConstants.DOT)));
+            }
+        }
+
         List<String> resultTests = new ArrayList<>();
         for (String test: allTests) {
-            int sepPos = test.lastIndexOf(StartsConstants.DOT);
-            String testClass = test.substring(0, sepPos);
-            if (flakyTestCandidates.contains(testClass)) { resultTests.add(test); }
+            // Parameterized tests run as method[index], but the candidates only have the method
+            int bracketPos = test.indexOf('[');
+            String testMethod = bracketPos < 0 ? test : test.substring(0, bracketPos);
+            String testClass = testMethod.substring(0, testMethod.lastIndexOf(StartsConstants.DOT));
+            if (classesWithMethods.contains(testClass)) {
+                if (flakyTestMethodCandidates.contains(testMethod)) { resultTests.add(test); }
+            } else if (flakyTestCandidates.contains(testClass)) {
+                resultTests.add(test);
+            }
         }
         return resultTests;
     }
@@ -377,9 +467,7 @@ public class DetectorPlugin extends TestPlugin {
         if (!tests.isEmpty()) {
             Files.createDirectories(outputPath);
             Files.write(DetectorPathManager.originalOrderPath(), String.join(System.lineSeparator(), tests).getBytes());
-            final Detector detector = DetectorFactory.makeDetector(this.runner, tests, rounds);
-            TestPluginUtil.project.info("Created dependent test detector (" + detector.getClass() + ").");
-            detector.writeTo(outputPath);
+            runDetector(project, tests, rounds);
         } else {
             String errorMsg = "Module has no tests, not running detector.";
             TestPluginUtil.project.info(errorMsg);
@@ -1,6 +1,7 @@
 package edu.illinois.cs.dt.tools.detection;
 
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
+import edu.illinois.cs.dt.tools.runner.data.SharedOrder;
 import edu.illinois.cs.dt.tools.runner.data.TestRun;
 import edu.illinois.cs.testrunner.configuration.Configuration;
 import edu.illinois.cs.testrunner.data.results.Result;
@@ -59,21 +60,16 @@ public class DetectorUtil {
                 .allMatch(tr -> tr.result().equals(Result.PASS) || tr.result().equals(Result.SKIPPED));
     }
 
-    private static <T> List<T> before(final List<T> ts, final T t) {
-        final int i = ts.indexOf(t);
-
-        if (i != -1) {
-            return new ArrayList<>(ts.subList(0, Math.min(ts.size(), i)));
-        } else {
-            return new ArrayList<>();
-        }
-    }
-
     public static List<DependentTest> flakyTests(final TestRunResult intended,
                                                  final TestRunResult revealed,
                                                  final boolean onlyFirstFailure) {
         final List<DependentTest> result = new ArrayList<>();
 
+        // All the prefixes below are views into these two orders rather than copies, and the TestRuns hold on to
+        // the orders, so the same order in a later round is interned to the same list again
+        final SharedOrder intendedOrder = SharedOrder.of(intended.testOrder());
+        final SharedOrder revealedOrder = SharedOrder.of(revealed.testOrder());
+
         for (final Map.Entry<String, TestResult> entry : intended.results().entrySet()) {
             final String testName = entry.getKey();
             final TestResult intendedResult = entry.getValue();
@@ -83,8 +79,10 @@ public class DetectorUtil {
                 final Result revealedResult = revealedResults.get(testName).result();
                 if (!revealedResult.equals(intendedResult.result())) {
                     result.add(new DependentTest(testName,
-                            new TestRun(before(intended.testOrder(), testName), intendedResult.result(), intended.id()),
-                            new TestRun(before(revealed.testOrder(), testName), revealedResult, revealed.id())));
+                            new TestRun(intendedOrder, Math.max(0, intendedOrder.indexOf(testName)),
+                                        intendedResult.result(), intended.id()),
+                            new TestRun(revealedOrder, Math.max(0, revealedOrder.indexOf(testName)),
+                                        revealedResult, revealed.id())));
 
                     if (onlyFirstFailure) {
                         // Only keep the first failure, if any
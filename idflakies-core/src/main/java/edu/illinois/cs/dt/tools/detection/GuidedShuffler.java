@@ -0,0 +1,67 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates orders that run test classes sharing static state (see StaticStateGraph) back to back, in both
+ * directions, before trying anything else. These are the pairs most likely to contain a polluter and its victim.
+ * Orders are built greedily like the ones of PairwiseShuffler, but only shared-state pairs need to be covered,
+ * so usually far fewer rounds are needed. Once every such pair is covered, the remaining rounds are random
+ * class orders. Methods are shuffled within their class.
+ */
+public class GuidedShuffler implements OrderGenerator {
+    private final Map<String, List<String>> classToMethods = new LinkedHashMap<>();
+    private final long seed;
+    private final StaticStateGraph graph;
+    private final PairCover classCover;
+
+    public GuidedShuffler(final List<String> tests, final long seed, final Path basedir) {
+        this.seed = seed;
+
+        for (final String test : tests) {
+            classToMethods.computeIfAbsent(TestShuffler.className(test), c -> new ArrayList<>()).add(test);
+        }
+
+        final List<String> classes = new ArrayList<>(classToMethods.keySet());
+        this.graph = StaticStateGraph.load(basedir, classes);
+        this.classCover = new PairCover(classes, graph.shared(), new Random(seed));
+    }
+
+    public StaticStateGraph graph() {
+        return graph;
+    }
+
+    /**
+     * @return The fewest rounds that can cover all shared-state pairs left (the greedy orders may need more)
+     */
+    public synchronized int minRoundsToCover() {
+        return classCover.minSequencesLeft();
+    }
+
+    /**
+     * @return The number of shared-state pairs not covered by the orders generated so far
+     */
+    public synchronized long uncoveredPairs() {
+        return classCover.uncovered();
+    }
+
+    @Override
+    public synchronized List<String> order(final int round) {
+        final Random random = OrderGenerator.random(seed, round);
+        final List<String> order = new ArrayList<>();
+
+        for (final String className : classCover.order(round, random)) {
+            final List<String> methods = new ArrayList<>(classToMethods.get(className));
+            Collections.shuffle(methods, random);
+            order.addAll(methods);
+        }
+
+        return order;
+    }
+}
@@ -0,0 +1,160 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import edu.illinois.cs.dt.tools.constants.StartsConstants;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The transitive closure of a call graph, with every method ("class:method", as in getTransistiveClosureMap)
+ * numbered once and the methods reachable from each entry method kept as a BitSet of those numbers.
+ *
+ * Methods are numbered in order of their class, so the methods of a class are a range of numbers, and the methods
+ * of a set of classes are a union of ranges. Asking which methods reachable from an entry method are in some
+ * classes is then a bitset intersection instead of comparing strings.
+ */
+public class MethodClosure {
+    public static String className(final String method) {
+        final int colon = method.lastIndexOf(StartsConstants.COLON_WO_SPACE);
+        return colon < 0 ? method : method.substring(0, colon);
+    }
+
+    public static MethodClosure of(final Map<String, Set<String>> closures) {
+        final Set<String> methods = new TreeSet<>(closures.keySet());
+        for (final Set<String> reachable : closures.values()) {
+            methods.addAll(reachable);
+        }
+
+        final MethodClosure closure = new MethodClosure(methods);
+        for (final Map.Entry<String, Set<String>> entry : closures.entrySet()) {
+            final BitSet reachable = new BitSet(closure.methods.length);
+            for (final String method : entry.getValue()) {
+                reachable.set(closure.methodIds.get(method));
+            }
+            closure.setReachable(entry.getKey(), reachable);
+        }
+
+        return closure;
+    }
+
+    // Sorted, so the methods of each class are next to each other
+    private final String[] methods;
+    private final Map<String, Integer> methodIds = new HashMap<>();
+    // Key: class. Value: {first method id, last method id + 1}
+    private final Map<String, int[]> classRanges = new HashMap<>();
+    // Indexed by method id, null for methods that are not entry methods
+    private final BitSet[] reachable;
+
+    /**
+     * @param methods All methods of the call graph, sorted (e.g., in a TreeSet)
+     */
+    MethodClosure(final Collection<String> methods) {
+        this.methods = methods.toArray(new String[0]);
+        this.reachable = new BitSet[this.methods.length];
+
+        for (int i = 0; i < this.methods.length; i++) {
+            methodIds.put(this.methods[i], i);
+
+            final String klass = className(this.methods[i]);
+            final int id = i;
+            classRanges.computeIfAbsent(klass, k -> new int[] { id, id })[1] = i + 1;
+        }
+    }
+
+    void setReachable(final String entryMethod, final BitSet reachableMethods) {
+        final int id = methodIds.get(entryMethod);
+
+        // Like getTransistiveClosureMap, the first entry with a name wins (overloads share a name)
+        if (reachable[id] == null) {
+            reachable[id] = reachableMethods;
+        }
+    }
+
+    public int id(final String method) {
+        return methodIds.getOrDefault(method, -1);
+    }
+
+    public int size() {
+        return methods.length;
+    }
+
+    /**
+     * @return The entry methods declared in the class
+     */
+    public List<String> entryMethods(final String className) {
+        final List<String> result = new ArrayList<>();
+        final int[] range = classRanges.get(className);
+
+        if (range != null) {
+            for (int i = range[0]; i < range[1]; i++) {
+                if (reachable[i] != null) {
+                    result.add(methods[i]);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The methods reachable from the entry method (empty if it is not one)
+     */
+    public BitSet reachable(final String entryMethod) {
+        final int id = id(entryMethod);
+        return id < 0 || reachable[id] == null ? new BitSet() : reachable[id];
+    }
+
+    /**
+     * @return The methods of the classes
+     */
+    public BitSet methodsOf(final Collection<String> classes) {
+        final BitSet result = new BitSet(methods.length);
+
+        for (final String klass : classes) {
+            final int[] range = classRanges.get(klass);
+            if (range != null) {
+                result.set(range[0], range[1]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The methods in dstClasses that are reachable from some entry method of srcClass
+     */
+    public BitSet reachableIn(final String srcClass, final BitSet dstMethods) {
+        final BitSet result = new BitSet(methods.length);
+
+        for (final String entryMethod : entryMethods(srcClass)) {
+            result.or(reachable(entryMethod));
+        }
+        result.and(dstMethods);
+
+        return result;
+    }
+
+    /**
+     * @return Whether some method in dstMethods is reachable from the entry method
+     */
+    public boolean reaches(final String entryMethod, final BitSet dstMethods) {
+        return reachable(entryMethod).intersects(dstMethods);
+    }
+
+    public Set<String> names(final BitSet ids) {
+        final Set<String> result = new LinkedHashSet<>();
+
+        for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1)) {
+            result.add(methods[i]);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,199 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import com.reedoei.eunomia.util.StandardMain;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the detector on the modules of a multi-module project several at a time.
+ *
+ * Modules are packed onto --slots slots by their test time in module-test-time.csv (longest first, each onto the
+ * slot with the least work so far), and every slot runs its modules one after another, each in its own mvn process.
+ * Each module still writes to its own .dtfixingtools directory. The slot count is passed on as
+ * dt.detector.module_slots, so that the modules' shares of detector.timeout are scaled up accordingly.
+ */
+public class ModuleScheduler extends StandardMain {
+    private final Path project;
+    private final int slots;
+    private final Path timeCsv;
+    private final Path logs;
+    private final String mvn;
+    private final List<String> mvnArgs;
+
+    private ModuleScheduler(final String[] args) {
+        super(args);
+
+        project = Paths.get(getArg("project").orElse(".")).toAbsolutePath().normalize();
+        slots = Math.max(1, Integer.parseInt(getArg("slots").orElse("2")));
+        timeCsv = getArg("times").map(Paths::get).orElse(project.resolve("module-test-time.csv"));
+        logs = getArg("logs").map(Paths::get).orElse(project.resolve("module-logs"));
+        mvn = getArg("mvn").orElse("mvn");
+
+        final String extra = getArg("mvn-args").orElse("").trim();
+        mvnArgs = extra.isEmpty() ? new ArrayList<>() : Arrays.asList(extra.split("\\s+"));
+    }
+
+    public static void main(final String[] args) {
+        try {
+            new ModuleScheduler(args).run();
+        } catch (Exception e) {
+            e.printStackTrace();
+
+            System.exit(1);
+        }
+
+        System.exit(0);
+    }
+
+    @Override
+    protected void run() throws Exception {
+        if (!Files.exists(timeCsv)) {
+            throw new IllegalStateException("No module test times found at " + timeCsv
+                    + " (run the ModuleTestTimePlugin first)");
+        }
+
+        final List<List<Module>> plan = pack(readModules());
+        Files.createDirectories(logs);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(plan.size());
+        final List<Future<List<String>>> slotFailures = new ArrayList<>();
+
+        for (int i = 0; i < plan.size(); i++) {
+            final int slot = i;
+            final List<Module> modules = plan.get(i);
+
+            System.out.printf("[INFO] Slot %d: %d modules, %.1f seconds of tests%n",
+                              slot, modules.size(), modules.stream().mapToDouble(m -> m.time).sum());
+
+            slotFailures.add(executor.submit(() -> runSlot(slot, modules)));
+        }
+
+        final List<String> failed = new ArrayList<>();
+        for (final Future<List<String>> future : slotFailures) {
+            failed.addAll(future.get());
+        }
+        executor.shutdown();
+
+        if (!failed.isEmpty()) {
+            System.out.println("[WARNING] Detection failed for " + failed.size() + " modules: " + failed);
+        }
+
+        System.out.println("[INFO] Finished all modules, logs are in " + logs);
+    }
+
+    private List<Module> readModules() throws IOException {
+        final List<Module> modules = new ArrayList<>();
+
+        for (final String line : Files.readAllLines(timeCsv)) {
+            final String[] split = line.split(",");
+
+            if (split.length < 2) {
+                continue;
+            }
+
+            try {
+                modules.add(new Module(split[0].trim(), Double.parseDouble(split[1].trim())));
+            } catch (NumberFormatException ignored) {
+                // Header line
+            }
+        }
+
+        return modules;
+    }
+
+    /**
+     * Longest processing time first: the longest remaining module always goes to the least loaded slot.
+     */
+    private List<List<Module>> pack(final List<Module> modules) {
+        final List<List<Module>> plan = new ArrayList<>();
+        final double[] load = new double[Math.min(slots, Math.max(1, modules.size()))];
+
+        for (int i = 0; i < load.length; i++) {
+            plan.add(new ArrayList<>());
+        }
+
+        modules.sort(Comparator.comparingDouble((Module m) -> m.time).reversed());
+
+        for (final Module module : modules) {
+            int least = 0;
+            for (int i = 1; i < load.length; i++) {
+                if (load[i] < load[least]) {
+                    least = i;
+                }
+            }
+
+            plan.get(least).add(module);
+            load[least] += module.time;
+        }
+
+        return plan;
+    }
+
+    /**
+     * @return The modules for which mvn did not exit successfully
+     */
+    private List<String> runSlot(final int slot, final List<Module> modules) throws IOException, InterruptedException {
+        final List<String> failed = new ArrayList<>();
+
+        for (final Module module : modules) {
+            final List<String> command = new ArrayList<>();
+            command.add(mvn);
+            command.add("testrunner:testplugin");
+            command.add("-pl");
+            command.add(module.selector());
+            command.add("-Ddt.detector.module_slots=" + slots);
+            command.addAll(mvnArgs);
+
+            final File log = logs.resolve(module.artifactId() + ".log").toFile();
+            System.out.println("[INFO] Slot " + slot + ": running detection for " + module.coordinates);
+
+            final Process process = new ProcessBuilder(command)
+                    .directory(project.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(log)
+                    .start();
+
+            final int exitCode = process.waitFor();
+            System.out.println("[INFO] Slot " + slot + ": finished " + module.coordinates + " (exit code " + exitCode + ")");
+
+            if (exitCode != 0) {
+                failed.add(module.coordinates);
+            }
+        }
+
+        return failed;
+    }
+
+    private static class Module {
+        // groupId:artifactId:version, as written by ModuleTestTimePlugin
+        private final String coordinates;
+        private final double time;
+
+        private Module(final String coordinates, final double time) {
+            this.coordinates = coordinates;
+            this.time = time;
+        }
+
+        private String artifactId() {
+            final String[] split = coordinates.split(":");
+            return split.length > 1 ? split[1] : coordinates;
+        }
+
+        // Maven's -pl accepts groupId:artifactId
+        private String selector() {
+            final String[] split = coordinates.split(":");
+            return split.length > 1 ? split[0] + ":" + split[1] : coordinates;
+        }
+    }
+}
@@ -88,59 +88,68 @@ public class ODFlakyTestFinder {
     }
 
     /*
-
+     * Where each affected class comes from (jar!entry or class file), found through one ClasspathScanner pass
      */
     public static Set<String> findAffectedClassPaths(Set<String> affectedClassesUnderTest, MavenProject project)
             throws IOException, DependencyResolutionRequiredException {
-        Set<String> jarClassPaths = readJarPaths(project);
-        Set<String> projClassPaths = readProjPaths();
+        ClasspathScanner scanner = ClasspathScanner.scan(project.getCompileClasspathElements(), new File(System.getProperty("user.dir")));
         Set<String> result = new HashSet<>();
-        boolean foundInJar = false;
         for (String clsPath: affectedClassesUnderTest) {
-            String newAffectedClsPath = clsPath.replace(StartsConstants.DOT, File.separator)+StartsConstants.CLASS_EXTENSION;
-            for (String jarCls: jarClassPaths) {
-                if (jarCls.endsWith(newAffectedClsPath)) {
-                    result.add(jarCls);
-                    foundInJar = true;
-                    break;
-                }
-            }
-            if (!foundInJar) {
-                for (String projCls: projClassPaths) {
-                    if (projCls.endsWith(newAffectedClsPath)) { result.add(projCls); break; }
-                }
-            }
-            foundInJar = false;
+            String location = scanner.find(clsPath);
+            if (location != null) { result.add(location); }
         }
         return result;
     }
 
     public static List<String> staticFieldsFinder(Set<String> affectedClassesUnderTest, MavenProject project) throws IOException, DependencyResolutionRequiredException {
+        return staticFieldsFinder(affectedClassesUnderTest, project, new File(project.getBasedir(), StartsConstants.STARTS_DIR_NAME));
+    }
+
+    /*
+     * Uses (and updates) the static field index in the artifacts directory, so only classes from jars and class
+     * files that changed since the last run are read again
+     */
+    public static List<String> staticFieldsFinder(Set<String> affectedClassesUnderTest, MavenProject project, File artifactsDir) throws IOException, DependencyResolutionRequiredException {
         List<String> result = new ArrayList<>();
         Set<String> affectedClassPaths = findAffectedClassPaths(affectedClassesUnderTest, project);
-        // Find classes with static fields in the input project
+        StaticFieldIndex index = StaticFieldIndex.load(artifactsDir);
+        // Group the classes by jar, so each jar is opened at most once
+        Map<String, List<String>> jarEntries = new HashMap<>();
         for (String cls: affectedClassPaths) {
             String[] clsSplit = cls.split(StartsConstants.EXCLAMATION);
             if (clsSplit[0].endsWith(StartsConstants.JAR_EXTENSION)) {
-                Map<String, Integer> resMapFromJar = findStaticFieldFromJars(clsSplit[0], clsSplit[1]);
-                for (Map.Entry<String, Integer> entry: resMapFromJar.entrySet()) {
-                    if (entry.getValue()>0) { result.add(entry.getKey()); }
-                }
+                jarEntries.computeIfAbsent(clsSplit[0], k -> new ArrayList<>()).add(clsSplit[1]);
             } else {
-                Map<String, Integer> resMapFromClass = findStaticFieldFromClass(cls);
+                Map<String, Integer> resMapFromClass = index.countsInClass(cls);
                 for (Map.Entry<String, Integer> entry: resMapFromClass.entrySet()) {
                     if (entry.getValue()>0) { result.add(entry.getKey()); }
                 }
             }
         }
+        // Find classes with static fields in the input project
+        for (Map.Entry<String, List<String>> jar: jarEntries.entrySet()) {
+            for (Map<String, Integer> resMapFromJar: index.countsInJar(jar.getKey(), jar.getValue()).values()) {
+                for (Map.Entry<String, Integer> entry: resMapFromJar.entrySet()) {
+                    String newKey = jar.getKey() + StartsConstants.EXCLAMATION + StartsConstants.BACKSLASH + entry.getKey();
+                    if (entry.getValue()>0) { result.add(newKey); }
+                }
+            }
+        }
+        index.save();
+        System.out.println("[INFO] Static fields: " + index.summary());
         return result;
     }
 
     public static Map<String, String[]> getDepTests(MavenProject project) throws FileNotFoundException {
-        List<File> depFiles = FileUtil.findFileRec(project.getBasedir(), StartsConstants.STARTS_DIR_NAME+File.separator+StartsConstants.ZLC_FILE);
+        return getDepTests(project.getBasedir());
+    }
+
+    public static Map<String, String[]> getDepTests(File basedir) throws FileNotFoundException {
+        List<File> depFiles = FileUtil.findFileRec(basedir, StartsConstants.STARTS_DIR_NAME+File.separator+StartsConstants.ZLC_FILE);
         Map<String, String[]> result = new HashMap<>();
         for (File df: depFiles) {
             List<String> depLines = FileUtil.readTxtFile(df);
+            if (depLines == null) { continue; }
             for (String l: depLines) {
                 String[] splitLine = l.split(StartsConstants.WHITE_SPACE); // (classUnderTest, cksum, depTests)
                 String[] depTests = splitLine[splitLine.length-1].split(StartsConstants.COMMA);
@@ -188,21 +197,30 @@ public class ODFlakyTestFinder {
         // List<String> clsWithSfFromSelectedTests = findClassWithStaticFieldsFromClassUnderTests(classesUnderTests, classesWithStaticFields);
         Set<String> result = new HashSet<>();
         for (String cls: classesWithStaticFields) {
-            String[] clsSplit = cls.split(StartsConstants.EXCLAMATION+StartsConstants.BACKSLASH);
-            String key;
-            if (clsSplit.length==2){ // class in jar
-                key = clsSplit[clsSplit.length-1]+StartsConstants.CLASS_EXTENSION;
-            } else { // class in project code
-                key = cls+StartsConstants.CLASS_EXTENSION;
-            }
-            for (String depTestKey: depTestMap.keySet()) {
-                if (depTestKey.endsWith(key)) {
-                    String[] depTests = depTestMap.get(depTestKey);
-                    if (depTests!=null) { Collections.addAll(result, depTests); }
-                }
-            }
+            result.addAll(getDepTestsOfClass(cls, depTestMap));
         }
         return new ArrayList<>(result);
     }
 
+    /*
+     * The tests that depend on a class with static fields (as written to affected-classes-with-static-fields)
+     */
+    public static Set<String> getDepTestsOfClass(String classWithStaticFields, Map<String, String[]> depTestMap) {
+        Set<String> result = new HashSet<>();
+        String[] clsSplit = classWithStaticFields.split(StartsConstants.EXCLAMATION+StartsConstants.BACKSLASH);
+        String key;
+        if (clsSplit.length==2){ // class in jar
+            key = clsSplit[clsSplit.length-1]+StartsConstants.CLASS_EXTENSION;
+        } else { // class in project code
+            key = classWithStaticFields+StartsConstants.CLASS_EXTENSION;
+        }
+        for (String depTestKey: depTestMap.keySet()) {
+            if (depTestKey.endsWith(key)) {
+                String[] depTests = depTestMap.get(depTestKey);
+                if (depTests!=null) { Collections.addAll(result, depTests); }
+            }
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,24 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the test order for each round of a detector.
+ * The order of a round only depends on the generator's base seed and the round number,
+ * so rounds can be generated in any order, ahead of time, or again when a run is resumed.
+ */
+public interface OrderGenerator {
+    List<String> order(final int round);
+
+    /**
+     * The random number generator to use for one round, derived from the base seed.
+     */
+    static Random random(final long baseSeed, final int round) {
+        // SplitMix64, so that nearby seeds and rounds give unrelated sequences
+        long z = baseSeed + (round + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new Random(z ^ (z >>> 31));
+    }
+}
@@ -0,0 +1,52 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import edu.illinois.cs.dt.tools.utility.PathManager;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class OrderGeneratorFactory {
+    /**
+     * The base seed for all order generators: dt.seed if it is set, otherwise the seed saved by an earlier run
+     * of this module (so resumed runs generate the same orders), otherwise a new seed, which is then saved.
+     */
+    public static long baseSeed() {
+        final String configured = Configuration.config().getProperty("dt.seed", "");
+        if (!configured.isEmpty()) {
+            return Long.parseLong(configured);
+        }
+
+        final Path seedPath = DetectorPathManager.seedPath();
+        try {
+            if (Files.exists(seedPath)) {
+                return Long.parseLong(new String(Files.readAllBytes(seedPath)).trim());
+            }
+        } catch (IOException | NumberFormatException ignored) {}
+
+        final long seed = System.currentTimeMillis();
+        try {
+            Files.createDirectories(seedPath.getParent());
+            Files.write(seedPath, String.valueOf(seed).getBytes());
+        } catch (IOException ignored) {}
+
+        return seed;
+    }
+
+    public static OrderGenerator makeGenerator(final String detectorType, final List<String> tests, final long seed) {
+        if (detectorType.equals("original")) {
+            return round -> tests;
+        } else if (detectorType.equals("smart-shuffle")) {
+            return new SmartShuffler(tests, seed);
+        } else if (detectorType.equals("pairwise")) {
+            return new PairwiseShuffler(tests, seed,
+                    Configuration.config().getProperty("dt.detector.pairwise.methods", false));
+        } else if (detectorType.equals("guided")) {
+            return new GuidedShuffler(tests, seed, PathManager.modulePath());
+        }
+
+        return new TestShuffler(detectorType, tests, seed);
+    }
+}
@@ -0,0 +1,163 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Greedy cover of ordered pairs of a list of items by sequences in which each pair appears back to back.
+ * Sequences are built once, in order, and kept, so the same round always gets the same sequence.
+ * Once every pair is covered, rounds get random sequences.
+ */
+class PairCover {
+    private final List<String> items;
+    private final boolean[][] covered;
+    private final int[] uncoveredOut;
+    private long uncovered;
+    // Tie breaking between equally good items, fixed by the seed
+    private final int[] priority;
+
+    private final List<int[]> sequences = new ArrayList<>();
+
+    /**
+     * Covers all ordered pairs of distinct items.
+     */
+    PairCover(final List<String> items, final Random random) {
+        this(items, null, random);
+    }
+
+    /**
+     * @param pairs pairs[i][j] is true if item i should run directly before item j in some sequence,
+     *              or null to cover all ordered pairs of distinct items
+     */
+    PairCover(final List<String> items, final boolean[][] pairs, final Random random) {
+        this.items = items;
+
+        final int n = items.size();
+        this.covered = new boolean[n][n];
+        this.uncoveredOut = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j || (pairs != null && !pairs[i][j])) {
+                    covered[i][j] = true;
+                } else {
+                    uncoveredOut[i]++;
+                    uncovered++;
+                }
+            }
+        }
+
+        final List<Integer> shuffled = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            shuffled.add(i);
+        }
+        Collections.shuffle(shuffled, random);
+
+        this.priority = new int[n];
+        for (int i = 0; i < n; i++) {
+            priority[shuffled.get(i)] = i;
+        }
+    }
+
+    /**
+     * @return The number of pairs not covered by the sequences built so far
+     */
+    long uncovered() {
+        return uncovered;
+    }
+
+    /**
+     * @return The fewest further sequences that can cover the pairs left, since each sequence covers at most one
+     *         pair starting at each item
+     */
+    int minSequencesLeft() {
+        int max = 0;
+        for (final int out : uncoveredOut) {
+            max = Math.max(max, out);
+        }
+        return max;
+    }
+
+    List<String> order(final int round, final Random random) {
+        while (sequences.size() <= round && uncovered > 0) {
+            sequences.add(nextSequence());
+        }
+
+        if (round < sequences.size()) {
+            final List<String> order = new ArrayList<>();
+            for (final int i : sequences.get(round)) {
+                order.add(items.get(i));
+            }
+            return order;
+        }
+
+        // Everything is covered already
+        final List<String> order = new ArrayList<>(items);
+        Collections.shuffle(order, random);
+        return order;
+    }
+
+    private int[] nextSequence() {
+        final int n = items.size();
+        final int[] sequence = new int[n];
+        final boolean[] used = new boolean[n];
+
+        int current = best(used, -1);
+        for (int k = 0; k < n; k++) {
+            if (k > 0) {
+                final int next = best(used, current);
+                cover(current, next);
+                current = next;
+            }
+
+            sequence[k] = current;
+            used[current] = true;
+        }
+
+        return sequence;
+    }
+
+    /**
+     * The unused item with the most uncovered pairs left, among those that cover a new pair after from
+     * (if there are any).
+     */
+    private int best(final boolean[] used, final int from) {
+        int best = -1;
+        boolean bestCoversNew = false;
+
+        for (int i = 0; i < used.length; i++) {
+            if (used[i]) {
+                continue;
+            }
+
+            final boolean coversNew = from >= 0 && !covered[from][i];
+
+            if (best < 0 ||
+                (coversNew && !bestCoversNew) ||
+                (coversNew == bestCoversNew && better(i, best))) {
+                best = i;
+                bestCoversNew = coversNew;
+            }
+        }
+
+        return best;
+    }
+
+    private boolean better(final int a, final int b) {
+        if (uncoveredOut[a] != uncoveredOut[b]) {
+            return uncoveredOut[a] > uncoveredOut[b];
+        }
+
+        return priority[a] < priority[b];
+    }
+
+    private void cover(final int from, final int to) {
+        if (!covered[from][to]) {
+            covered[from][to] = true;
+            uncoveredOut[from]--;
+            uncovered--;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates orders in which every ordered pair of test classes (A, B) has A run directly before B in some round.
+ *
+ * An order of n classes has n - 1 such adjacent pairs, so covering all n * (n - 1) pairs takes at least n orders.
+ * Orders are built greedily: each one keeps stepping to a class it has not used yet through a pair that is not
+ * covered yet, preferring classes with the most uncovered pairs left. This usually needs close to n orders.
+ * Once every pair is covered, the remaining rounds are random class orders.
+ *
+ * With methods set, the methods within each class are ordered the same way, so every ordered pair of methods
+ * of the same class also runs back to back in some round.
+ */
+public class PairwiseShuffler implements OrderGenerator {
+    private final Map<String, List<String>> classToMethods = new LinkedHashMap<>();
+    private final long seed;
+    private final PairCover classCover;
+    private final Map<String, PairCover> methodCovers = new LinkedHashMap<>();
+
+    public PairwiseShuffler(final List<String> tests, final long seed, final boolean methods) {
+        this.seed = seed;
+
+        for (final String test : tests) {
+            classToMethods.computeIfAbsent(TestShuffler.className(test), c -> new ArrayList<>()).add(test);
+        }
+
+        this.classCover = new PairCover(new ArrayList<>(classToMethods.keySet()), new Random(seed));
+
+        if (methods) {
+            for (final Map.Entry<String, List<String>> entry : classToMethods.entrySet()) {
+                methodCovers.put(entry.getKey(), new PairCover(entry.getValue(), new Random(seed ^ entry.getKey().hashCode())));
+            }
+        }
+    }
+
+    /**
+     * @return The number of ordered class pairs
+     */
+    public long classPairs() {
+        final long n = classToMethods.size();
+        return n * (n - 1);
+    }
+
+    /**
+     * @return The fewest rounds that can cover all ordered class pairs (the greedy orders usually need a few more)
+     */
+    public int minRoundsToCover() {
+        return classToMethods.size() > 1 ? classToMethods.size() : 0;
+    }
+
+    /**
+     * @return The number of ordered class pairs not covered by the orders generated so far
+     */
+    public synchronized long uncoveredClassPairs() {
+        return classCover.uncovered();
+    }
+
+    @Override
+    public synchronized List<String> order(final int round) {
+        final Random random = OrderGenerator.random(seed, round);
+        final List<String> order = new ArrayList<>();
+
+        for (final String className : classCover.order(round, random)) {
+            final PairCover methodCover = methodCovers.get(className);
+
+            if (methodCover != null) {
+                order.addAll(methodCover.order(round, random));
+            } else {
+                order.addAll(classToMethods.get(className));
+            }
+        }
+
+        return order;
+    }
+}
@@ -0,0 +1,270 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
+import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
+import edu.illinois.cs.dt.tools.runner.data.DependentTest;
+import edu.illinois.cs.dt.tools.runner.data.PolluterSet;
+import edu.illinois.cs.dt.tools.utility.OrderHash;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.testrunner.data.results.Result;
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+import edu.illinois.cs.testrunner.runner.Runner;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds the tests a dependent test actually depends on, using delta debugging (ddmin) on the prefix of the order
+ * that shows the behavior we are looking for (see PolluterSet).
+ *
+ * The candidate orders of each ddmin step are run dt.minimize.forks at a time, each on its own fork of the runner
+ * (which uses the runner pool when dt.runner.pool is set), and a step stops at the first batch with a smaller order
+ * that still works. The result of the dependent test in every order that was run is kept for the whole session,
+ * keyed by the hash of the order, so orders that come up again (e.g., for another test of the same round) are not rerun.
+ */
+public class PolluterMinimizer {
+    public static boolean enabled() {
+        return Configuration.config().getProperty("dt.minimize", false);
+    }
+
+    private final boolean findCleaners = Configuration.config().getProperty("dt.minimize.cleaners", false);
+    private final int forks = Math.max(1, Configuration.config().getProperty("dt.minimize.forks",
+            Configuration.config().getProperty("dt.detector.parallel.forks", 1)));
+
+    private final BlockingQueue<InstrumentingSmartRunner> idleForks;
+    // Key: OrderHash.hash of the order that was run, which always ends with the dependent test
+    private final Map<Long, Result> results = new ConcurrentHashMap<>();
+    private final AtomicInteger runs = new AtomicInteger(0);
+
+    public PolluterMinimizer(final Runner runner) {
+        this.idleForks = new ArrayBlockingQueue<>(forks);
+
+        // The orders tried here are not detection runs, so they are kept out of test-runs (and out of Analysis)
+        for (int i = 0; i < forks; i++) {
+            idleForks.add(InstrumentingSmartRunner.fork(runner, "minimize-" + i)
+                    .storeRunsIn(RunnerPathManager.minimizeRuns()));
+        }
+    }
+
+    /**
+     * @return The minimal polluters (and cleaners) of the test, or null if its behavior could not be reproduced
+     */
+    public PolluterSet minimize(final DependentTest dependentTest) {
+        final ExecutorService executor = Executors.newFixedThreadPool(forks);
+        final int runsBefore = runs.get();
+
+        try {
+            final String dt = dependentTest.name();
+            final Result alone = result(executor, withTest(new ArrayList<>(), dt)).get();
+
+            if (alone == null) {
+                System.out.println("[WARNING] Could not run " + dt + " on its own, not minimizing it.");
+                return null;
+            }
+
+            // A test that gets its revealed result alone needs something from the intended order instead
+            final boolean brittle = alone.equals(dependentTest.revealed().result());
+            final List<String> prefix = brittle ? dependentTest.intended().order() : dependentTest.revealed().order();
+            final Result target = brittle ? dependentTest.intended().result() : dependentTest.revealed().result();
+
+            if (!target.equals(result(executor, withTest(prefix, dt)).get())) {
+                System.out.println("[WARNING] " + dt + " did not get " + target + " again after its full prefix, not minimizing it.");
+                return null;
+            }
+
+            final List<String> polluters = ddmin(executor, new ArrayList<>(prefix), dt, target);
+
+            final List<String> cleaners = new ArrayList<>();
+            if (findCleaners && !brittle) {
+                cleaners.addAll(cleaners(executor, dependentTest, polluters));
+            }
+
+            final PolluterSet polluterSet = new PolluterSet(brittle ? PolluterSet.BRITTLE : PolluterSet.VICTIM,
+                    polluters, cleaners, runs.get() - runsBefore);
+            System.out.printf("[INFO] Minimized %s (%s) to %d polluters and %d cleaners in %d runs.%n",
+                    dt, polluterSet.kind(), polluters.size(), cleaners.size(), polluterSet.runs());
+
+            return polluterSet;
+        } catch (Exception e) {
+            System.out.println("[WARNING] Could not minimize " + dependentTest.name() + ": " + e);
+            return null;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tells which of the candidate orders, if any, still makes the dependent test get the target result.
+     */
+    @FunctionalInterface
+    interface CandidateRunner {
+        /**
+         * @return The index of the first candidate that gives the target result, or -1 if none does
+         */
+        int firstWithResult(final List<List<String>> candidates) throws Exception;
+    }
+
+    private List<String> ddmin(final ExecutorService executor, final List<String> tests,
+                               final String dt, final Result target) throws Exception {
+        return ddmin(tests, candidates -> firstWithResult(executor, candidates, dt, target));
+    }
+
+    /**
+     * Zeller's ddmin: splits the tests into n chunks and keeps the first chunk, or else the first complement of
+     * a chunk, that still makes the test get the target result, going to finer chunks when neither works.
+     */
+    static List<String> ddmin(List<String> tests, final CandidateRunner candidateRunner) throws Exception {
+        int n = 2;
+
+        while (tests.size() >= 2) {
+            final List<List<String>> chunks = split(tests, n);
+
+            final List<List<String>> candidates = new ArrayList<>(chunks);
+            // With two chunks, the complements are just the chunks again
+            if (n > 2) {
+                for (int i = 0; i < chunks.size(); i++) {
+                    final List<String> complement = new ArrayList<>();
+                    for (int j = 0; j < chunks.size(); j++) {
+                        if (j != i) {
+                            complement.addAll(chunks.get(j));
+                        }
+                    }
+                    candidates.add(complement);
+                }
+            }
+
+            final int found = candidateRunner.firstWithResult(candidates);
+
+            if (found >= 0 && found < chunks.size()) {
+                tests = candidates.get(found);
+                n = 2;
+            } else if (found >= 0) {
+                tests = candidates.get(found);
+                n = Math.max(n - 1, 2);
+            } else if (n < tests.size()) {
+                n = Math.min(2 * n, tests.size());
+            } else {
+                break;
+            }
+        }
+
+        return tests;
+    }
+
+    /**
+     * Runs the candidates a batch of forks at a time, stopping after the first batch in which one of them
+     * gives the target result.
+     *
+     * @return The index of the first candidate that gives the target result, or -1 if none does
+     */
+    private int firstWithResult(final ExecutorService executor, final List<List<String>> candidates,
+                                final String dt, final Result target) throws Exception {
+        for (int start = 0; start < candidates.size(); start += forks) {
+            final List<Future<Result>> batch = new ArrayList<>();
+            for (int i = start; i < Math.min(start + forks, candidates.size()); i++) {
+                batch.add(result(executor, withTest(candidates.get(i), dt)));
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                if (target.equals(batch.get(i).get())) {
+                    return start + i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Tests that, run between the polluters and the victim, give the victim its intended result again.
+     * Every other test of either order is tried, all at once.
+     */
+    private Set<String> cleaners(final ExecutorService executor, final DependentTest dependentTest,
+                                 final List<String> polluters) throws Exception {
+        final Set<String> candidates = new LinkedHashSet<>(dependentTest.intended().order());
+        candidates.addAll(dependentTest.revealed().order());
+        candidates.removeAll(polluters);
+        candidates.remove(dependentTest.name());
+
+        final Map<String, Future<Result>> runs = new LinkedHashMap<>();
+        for (final String candidate : candidates) {
+            final List<String> order = new ArrayList<>(polluters);
+            order.add(candidate);
+            runs.put(candidate, result(executor, withTest(order, dependentTest.name())));
+        }
+
+        final Set<String> cleaners = new LinkedHashSet<>();
+        for (final Map.Entry<String, Future<Result>> entry : runs.entrySet()) {
+            if (dependentTest.intended().result().equals(entry.getValue().get())) {
+                cleaners.add(entry.getKey());
+            }
+        }
+        return cleaners;
+    }
+
+    /**
+     * The result of the last test of the order, from the cache if this order was run before.
+     * The result is null if the run failed.
+     */
+    private Future<Result> result(final ExecutorService executor, final List<String> order) {
+        final String dt = order.get(order.size() - 1);
+        final long hash = OrderHash.hash(order);
+
+        return executor.submit(() -> {
+            final Result cached = results.get(hash);
+            if (cached != null) {
+                return cached;
+            }
+
+            final InstrumentingSmartRunner fork = idleForks.take();
+            try {
+                runs.incrementAndGet();
+                final TestRunResult testRunResult = fork.runList(order).get();
+                final TestResult testResult = testRunResult.results().get(dt);
+
+                if (testResult == null) {
+                    return null;
+                }
+
+                results.put(hash, testResult.result());
+                return testResult.result();
+            } catch (Exception e) {
+                return null;
+            } finally {
+                idleForks.put(fork);
+            }
+        });
+    }
+
+    private static List<String> withTest(final List<String> prefix, final String dt) {
+        final List<String> order = new ArrayList<>(prefix);
+        order.remove(dt);
+        order.add(dt);
+        return order;
+    }
+
+    private static List<List<String>> split(final List<String> tests, final int n) {
+        final List<List<String>> chunks = new ArrayList<>();
+
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            final int end = start + (tests.size() - start) / (n - i);
+            chunks.add(new ArrayList<>(tests.subList(start, end)));
+            start = end;
+        }
+
+        return chunks;
+    }
+}
@@ -1,12 +1,12 @@
 package edu.illinois.cs.dt.tools.detection;
 
-import com.google.gson.Gson;
 import com.reedoei.eunomia.collections.ListEx;
-import com.reedoei.eunomia.io.files.FileUtil;
 import com.reedoei.eunomia.util.StandardMain;
 import edu.illinois.cs.dt.tools.analysis.ResultDirVisitor;
+import edu.illinois.cs.dt.tools.runner.ResultLog;
 import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
+import edu.illinois.cs.dt.tools.utility.TestRunResultReader;
 import edu.illinois.cs.testrunner.data.results.Result;
 import edu.illinois.cs.testrunner.data.results.TestResult;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -115,7 +116,7 @@ public class RebuildDetectionRounds extends StandardMain {
             final List<Path> roundPaths = list.collect(Collectors.toList());
 
             for (final Path roundPath : roundPaths) {
-                final DetectionRound detectionRound = new Gson().fromJson(FileUtil.readFile(roundPath), DetectionRound.class);
+                final DetectionRound detectionRound = DetectionRound.fromFile(roundPath);
 
                 final List<DependentTest> allDts = new ArrayList<>();
 
@@ -125,7 +126,7 @@ public class RebuildDetectionRounds extends StandardMain {
 
                 final DetectionRound newRound = new DetectionRound(detectionRound.testRunIds(), allDts, allDts, detectionRound.roundTime());
 
-                Files.write(roundPath, new Gson().toJson(newRound).getBytes());
+                Files.write(roundPath, newRound.toString().getBytes());
             }
         }
 
@@ -148,8 +149,15 @@ public class RebuildDetectionRounds extends StandardMain {
     }
 
     private TestRunResult readTestRunResult(final Path resultsPath, final String id) throws IOException {
-        final String contents = FileUtil.readFile(resultsPath.resolve(RunnerPathManager.TEST_RUNS).resolve("results").resolve(id));
+        final Path testRuns = resultsPath.resolve(RunnerPathManager.TEST_RUNS);
+        if (ResultLog.exists(testRuns)) {
+            final Optional<TestRunResult> result = ResultLog.at(testRuns).read(id);
 
-        return new Gson().fromJson(contents, TestRunResult.class);
+            if (result.isPresent()) {
+                return result.get();
+            }
+        }
+
+        return TestRunResultReader.read(resultsPath.resolve(RunnerPathManager.TEST_RUNS).resolve("results").resolve(id));
     }
 }
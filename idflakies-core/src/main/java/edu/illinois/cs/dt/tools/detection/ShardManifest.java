@@ -0,0 +1,162 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import com.google.gson.Gson;
+import com.reedoei.eunomia.io.files.FileUtil;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The slice of a sharded detection run that one idflakies invocation executes.
+ *
+ * With dt.shard.plan set to the number of shards, the plugin generates the orders for all rounds up front
+ * (from dt.seed, see OrderGenerator, so the plan can be reproduced) and writes one manifest per shard instead of running
+ * the detector; rounds are dealt out round-robin. Running the plugin with dt.shard.manifest pointing at a manifest
+ * then runs exactly those orders, and ShardMerger combines the results of all shards.
+ */
+public class ShardManifest {
+    public static final String FILE_NAME = "shard-manifest.json";
+
+    public static int plannedShards() {
+        return Configuration.config().getProperty("dt.shard.plan", 0);
+    }
+
+    public static Optional<Path> manifestPath() {
+        final String path = Configuration.config().getProperty("dt.shard.manifest", "");
+        return path.isEmpty() ? Optional.empty() : Optional.of(Paths.get(path));
+    }
+
+    public static ShardManifest fromFile(final Path path) throws IOException {
+        return new Gson().fromJson(FileUtil.readFile(path), ShardManifest.class);
+    }
+
+    /**
+     * Generates the orders of all rounds and splits them into one manifest per shard.
+     */
+    public static List<ShardManifest> plan(final String detectorType, final List<String> tests,
+                                           final int rounds, final long seed, final int shards) {
+        final List<ShardManifest> manifests = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            manifests.add(new ShardManifest(i, shards, seed, detectorType, tests));
+        }
+
+        final OrderGenerator generator = OrderGeneratorFactory.makeGenerator(detectorType, tests, seed);
+
+        for (int round = 0; round < rounds; round++) {
+            manifests.get(round % shards).add(round, generator.order(round));
+        }
+
+        return manifests;
+    }
+
+    private final int shard;
+    private final int shards;
+    private final long seed;
+    private final String detectorType;
+    private final List<String> tests;
+    private final List<PlannedRound> rounds = new ArrayList<>();
+    private transient Map<String, Integer> testIndex = null;
+
+    private ShardManifest(final int shard, final int shards, final long seed,
+                          final String detectorType, final List<String> tests) {
+        this.shard = shard;
+        this.shards = shards;
+        this.seed = seed;
+        this.detectorType = detectorType;
+        this.tests = tests;
+    }
+
+    private void add(final int round, final List<String> order) {
+        if (testIndex == null) {
+            testIndex = new HashMap<>();
+            for (int i = 0; i < tests.size(); i++) {
+                testIndex.put(tests.get(i), i);
+            }
+        }
+
+        final int[] indices = new int[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            indices[i] = testIndex.get(order.get(i));
+        }
+
+        rounds.add(new PlannedRound(round, indices));
+    }
+
+    public int shard() {
+        return shard;
+    }
+
+    public int shards() {
+        return shards;
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    public String detectorType() {
+        return detectorType;
+    }
+
+    /**
+     * The original order, shared by all shards.
+     */
+    public List<String> tests() {
+        return tests;
+    }
+
+    /**
+     * @return The number of rounds in this shard
+     */
+    public int size() {
+        return rounds.size();
+    }
+
+    /**
+     * @param i The index of the round within this shard
+     * @return The round number in the whole plan
+     */
+    public int round(final int i) {
+        return rounds.get(i).round;
+    }
+
+    /**
+     * @param i The index of the round within this shard
+     */
+    public List<String> order(final int i) {
+        final List<String> order = new ArrayList<>();
+        for (final int index : rounds.get(i).order) {
+            order.add(tests.get(index));
+        }
+        return order;
+    }
+
+    public void writeTo(final Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Files.write(path, toString().getBytes());
+    }
+
+    @Override
+    public String toString() {
+        return new Gson().toJson(this);
+    }
+
+    private static class PlannedRound {
+        private final int round;
+        // Indices into tests
+        private final int[] order;
+
+        private PlannedRound(final int round, final int[] order) {
+            this.round = round;
+            this.order = order;
+        }
+    }
+}
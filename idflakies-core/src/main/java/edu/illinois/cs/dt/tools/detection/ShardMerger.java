@@ -0,0 +1,234 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import com.reedoei.eunomia.string.StringUtil;
+import com.reedoei.eunomia.util.StandardMain;
+import edu.illinois.cs.dt.tools.runner.ResultLog;
+import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
+import edu.illinois.cs.dt.tools.runner.data.DependentTest;
+import edu.illinois.cs.dt.tools.runner.data.DependentTestList;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Combines the output of the shards of a sharded detection run (see ShardManifest) into one output directory,
+ * as if all rounds had run in one invocation.
+ *
+ * Rounds are renumbered to their round in the plan. The filtering that shards leave out is then replayed in
+ * round order: a test that confirmation found to be non-order-dependent in any shard is dropped everywhere,
+ * and every other test is only kept in the first round that found it (like UniqueFilter).
+ */
+public class ShardMerger extends StandardMain {
+    private static final Pattern ROUND_FILE = Pattern.compile("round(\\d+)\\.json");
+
+    private final List<Path> shards;
+    private final Path output;
+
+    private ShardMerger(final String[] args) {
+        super(args);
+
+        // The .dtfixingtools directories of the shards
+        shards = Stream.of(getArgRequired("shards").split(",")).map(Paths::get).collect(Collectors.toList());
+        output = Paths.get(getArgRequired("output"));
+    }
+
+    public static void main(final String[] args) {
+        try {
+            new ShardMerger(args).run();
+        } catch (Exception e) {
+            e.printStackTrace();
+
+            System.exit(1);
+        }
+
+        System.exit(0);
+    }
+
+    @Override
+    protected void run() throws Exception {
+        final Path detectionResults = output.resolve(DetectorPathManager.DETECTION_RESULTS);
+        Files.createDirectories(detectionResults);
+
+        final Map<Integer, DetectionRound> rounds = new TreeMap<>();
+        final Set<String> knownFlaky = new HashSet<>();
+        String detectorType = null;
+        final Set<Integer> seenShards = new HashSet<>();
+        int expectedShards = 0;
+
+        for (final Path shard : shards) {
+            final Path shardResults = shard.resolve(DetectorPathManager.DETECTION_RESULTS);
+            final Path manifestPath = shardResults.resolve(ShardManifest.FILE_NAME);
+
+            if (!Files.exists(manifestPath)) {
+                System.out.println("[WARNING] No shard manifest found at " + manifestPath + ", skipping");
+                continue;
+            }
+
+            final ShardManifest manifest = ShardManifest.fromFile(manifestPath);
+            if (detectorType != null && !detectorType.equals(manifest.detectorType())) {
+                throw new IllegalArgumentException("Shard " + shard + " ran " + manifest.detectorType() + ", not " + detectorType);
+            }
+            detectorType = manifest.detectorType();
+            expectedShards = manifest.shards();
+            if (!seenShards.add(manifest.shard())) {
+                throw new IllegalArgumentException("Shard " + manifest.shard() + " was given more than once");
+            }
+
+            System.out.println("[INFO] Merging shard " + manifest.shard() + " of " + manifest.shards() + " from " + shard);
+
+            readRounds(shardResults.resolve(detectorType), manifest, rounds, knownFlaky);
+            copyFilterRounds(shardResults, detectionResults, detectorType, manifest);
+            copyTestRuns(shard.resolve(RunnerPathManager.TEST_RUNS), output.resolve(RunnerPathManager.TEST_RUNS));
+
+            final Path originalOrder = shard.resolve(DetectorPathManager.ORIGINAL_ORDER);
+            if (Files.exists(originalOrder)) {
+                Files.copy(originalOrder, output.resolve(DetectorPathManager.ORIGINAL_ORDER), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        if (detectorType == null) {
+            throw new IllegalArgumentException("None of the given directories contain shard results");
+        }
+
+        if (seenShards.size() != expectedShards) {
+            System.out.println("[WARNING] Only merged " + seenShards.size() + " of " + expectedShards + " shards");
+        }
+
+        final List<DependentTest> found = replayFilters(rounds, knownFlaky, detectionResults.resolve(detectorType));
+
+        final DependentTestList dtList = new DependentTestList(found);
+        Files.write(detectionResults.resolve(DetectorPathManager.FLAKY_LIST_PATH), dtList.toString().getBytes());
+        Files.write(detectionResults.resolve("list.txt"), StringUtil.unlines(dtList.names()).getBytes());
+
+        System.out.println("[INFO] Merged " + rounds.size() + " rounds, found " + dtList.size() + " tests, wrote results to " + output);
+    }
+
+    private void readRounds(final Path roundsDir, final ShardManifest manifest,
+                            final Map<Integer, DetectionRound> rounds, final Set<String> knownFlaky) throws IOException {
+        if (!Files.isDirectory(roundsDir)) {
+            return;
+        }
+
+        for (final Path roundPath : roundFiles(roundsDir)) {
+            final DetectionRound round = DetectionRound.fromFile(roundPath);
+            rounds.put(planRound(roundPath, manifest), round);
+
+            // Shards only run the confirmation filter, so anything it removed was found to be non-order-dependent
+            final Set<String> kept = new HashSet<>(round.filteredTests().names());
+            for (final String name : round.unfilteredTests().names()) {
+                if (!kept.contains(name)) {
+                    knownFlaky.add(name);
+                }
+            }
+        }
+    }
+
+    private List<DependentTest> replayFilters(final Map<Integer, DetectionRound> rounds, final Set<String> knownFlaky,
+                                              final Path roundsDir) throws IOException {
+        final Set<String> seen = new HashSet<>();
+        final List<DependentTest> found = new ArrayList<>();
+
+        for (final Map.Entry<Integer, DetectionRound> entry : rounds.entrySet()) {
+            final DetectionRound round = entry.getValue();
+            final List<DependentTest> filtered = new ArrayList<>();
+
+            for (final DependentTest dependentTest : round.filteredTests().dts()) {
+                if (!knownFlaky.contains(dependentTest.name()) && seen.add(dependentTest.name())) {
+                    filtered.add(dependentTest);
+                }
+            }
+            found.addAll(filtered);
+
+            final DetectionRound merged =
+                    new DetectionRound(round.testRunIds(), round.unfilteredTests().dts(), filtered, round.roundTime());
+            final Path path = DetectorPathManager.pathWithRound(roundsDir, "", entry.getKey());
+            Files.createDirectories(path.getParent());
+            Files.write(path, merged.toString().getBytes());
+        }
+
+        return found;
+    }
+
+    /**
+     * Copies the rounds written by the filters (e.g., random-verify), renumbered to the rounds of the plan.
+     */
+    private void copyFilterRounds(final Path shardResults, final Path detectionResults,
+                                  final String detectorType, final ShardManifest manifest) throws IOException {
+        final List<Path> filterDirs;
+        try (final Stream<Path> list = Files.list(shardResults)) {
+            filterDirs = list.filter(Files::isDirectory)
+                    .filter(p -> p.getFileName().toString().startsWith(detectorType + "-"))
+                    .collect(Collectors.toList());
+        }
+
+        for (final Path filterDir : filterDirs) {
+            final Path target = detectionResults.resolve(filterDir.getFileName().toString());
+            Files.createDirectories(target);
+
+            for (final Path roundPath : roundFiles(filterDir)) {
+                Files.copy(roundPath, DetectorPathManager.pathWithRound(target, "", planRound(roundPath, manifest)),
+                           StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private void copyTestRuns(final Path from, final Path to) throws IOException {
+        if (ResultLog.exists(from)) {
+            final ResultLog log = ResultLog.at(from);
+
+            for (final String id : log.ids()) {
+                final Optional<TestRunResult> result = log.read(id);
+
+                if (result.isPresent()) {
+                    ResultLog.at(to).append(result.get(), log.output(id).orElse(null));
+                }
+            }
+        }
+
+        // Test run ids are unique, so the files of different shards never collide
+        for (final String kind : new String[] {"results", "output"}) {
+            final Path dir = from.resolve(kind);
+
+            if (Files.isDirectory(dir)) {
+                Files.createDirectories(to.resolve(kind));
+
+                try (final Stream<Path> list = Files.list(dir)) {
+                    for (final Path file : list.collect(Collectors.toList())) {
+                        Files.copy(file, to.resolve(kind).resolve(file.getFileName().toString()), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Path> roundFiles(final Path dir) throws IOException {
+        try (final Stream<Path> list = Files.list(dir)) {
+            return list.filter(p -> ROUND_FILE.matcher(p.getFileName().toString()).matches()).collect(Collectors.toList());
+        }
+    }
+
+    private static int planRound(final Path roundPath, final ShardManifest manifest) {
+        final Matcher matcher = ROUND_FILE.matcher(roundPath.getFileName().toString());
+
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a round file: " + roundPath);
+        }
+
+        return manifest.round(Integer.parseInt(matcher.group(1)));
+    }
+}
@@ -1,102 +1,109 @@
 package edu.illinois.cs.dt.tools.detection;
 
-import com.reedoei.eunomia.collections.RandomList;
-
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Random;
 
-public class SmartShuffler {
-    private final RandomList<String> toComeFirst;
-    private final RandomList<String> toComeLast;
+/**
+ * Tries to put every test first once and last once: in round i (for i smaller than the number of tests),
+ * the i-th test of one seeded permutation goes first and the i-th test of another goes last.
+ * Everything else is shuffled with the round's random number generator (see OrderGenerator).
+ */
+public class SmartShuffler implements OrderGenerator {
+    private final List<String> toComeFirst;
+    private final List<String> toComeLast;
 
-    private final HashMap<String, RandomList<String>> classToMethods;
-    private final HashMap<String, String> methodToClass;
+    private final Map<String, List<String>> classToMethods;
+    private final Map<String, String> methodToClass;
 
-    private final RandomList<String> tests;
+    private final long seed;
 
     public SmartShuffler(final List<String> tests) {
-        this.tests = new RandomList<>(tests);
+        this(tests, OrderGeneratorFactory.baseSeed());
+    }
 
-        toComeFirst = new RandomList<>(tests);
-        toComeLast = new RandomList<>(tests);
+    public SmartShuffler(final List<String> tests, final long seed) {
+        this.seed = seed;
 
-        classToMethods = new HashMap<>();
+        classToMethods = new LinkedHashMap<>();
         methodToClass = new HashMap<>();
 
         for (final String test : tests) {
             final String className = TestShuffler.className(test);
 
             if (!classToMethods.containsKey(className)) {
-                classToMethods.put(className, new RandomList<>());
+                classToMethods.put(className, new ArrayList<>());
             }
 
             classToMethods.get(className).add(test);
             methodToClass.put(test, className);
         }
-    }
 
-    private RandomList<String> testSiblings(final String testName) {
-        return classToMethods.get(methodToClass.get(testName));
-    }
-
-    @SafeVarargs
-    private final void addTestMethods(final List<String> order, final Optional<String>... excluding) {
-        // Add all classes other than the last one
-        for (final RandomList<String> methods : classToMethods.values()) {
-            final boolean foundExcludedTest =
-                    Arrays.stream(excluding).anyMatch(t -> t.isPresent() && methods.contains(t.get()));
-
-            if (!foundExcludedTest) {
-                order.addAll(methods.shuffled());
+        // Fixed for the seed, so round i always uses the same first and last test
+        final Random random = new Random(seed);
+        toComeFirst = new ArrayList<>(tests);
+        Collections.shuffle(toComeFirst, random);
+        toComeLast = new ArrayList<>(tests);
+        Collections.shuffle(toComeLast, random);
+
+        // The first and last test of a round should differ
+        for (int i = 0; i < toComeLast.size() && toComeLast.size() > 1; i++) {
+            if (toComeLast.get(i).equals(toComeFirst.get(i))) {
+                Collections.swap(toComeLast, i, (i + 1) % toComeLast.size());
             }
         }
     }
 
-    public List<String> nextOrder() {
-        final Optional<String> first = sample(toComeFirst);
-        final Optional<String> last = first.isPresent() ? sample(toComeLast, first.get()) : sample(toComeLast);
+    private List<String> testSiblings(final String testName) {
+        return classToMethods.get(methodToClass.get(testName));
+    }
+
+    @Override
+    public List<String> order(final int round) {
+        final Random random = OrderGenerator.random(seed, round);
 
-        first.ifPresent(toComeFirst::remove);
-        last.ifPresent(toComeLast::remove);
+        final String first = round < toComeFirst.size() ? toComeFirst.get(round) : null;
+        final String last = round < toComeLast.size() && !toComeLast.get(round).equals(first) ? toComeLast.get(round) : null;
 
         final List<String> order = new ArrayList<>();
 
         // Add the first class, make sure the first test actually comes first
-        if (first.isPresent()) {
-            order.addAll(testSiblings(first.get()).shuffled());
-            order.remove(first.get());
-            order.add(0, first.get());
+        if (first != null) {
+            order.addAll(shuffled(testSiblings(first), random));
+            order.remove(first);
+            order.add(0, first);
         }
 
-        addTestMethods(order, first, last);
+        // Add all classes other than the first and last one
+        for (final List<String> methods : classToMethods.values()) {
+            final boolean excluded = (first != null && methods.contains(first)) || (last != null && methods.contains(last));
+
+            if (!excluded) {
+                order.addAll(shuffled(methods, random));
+            }
+        }
 
         // Add all tests from the last class, make sure the last test actually comes last
-        if (last.isPresent()) {
-            order.addAll(testSiblings(last.get()).shuffled());
-            order.remove(last.get());
-            order.add(last.get());
+        if (last != null && !order.contains(last)) {
+            order.addAll(shuffled(testSiblings(last), random));
+            order.remove(last);
+            order.add(last);
+        } else if (last != null) {
+            // Same class as the first test
+            order.remove(last);
+            order.add(last);
         }
 
         return order;
     }
 
-    private Optional<String> sample(final RandomList<String> from, final String... excluding) {
-        return sample(from, Arrays.stream(excluding).collect(Collectors.toSet()));
-    }
-
-    private Optional<String> sample(final RandomList<String> from, final Set<String> excluding) {
-        for (final String s : from.shuffled()) {
-            if (!excluding.contains(s)) {
-                return Optional.ofNullable(s);
-            }
-        }
-
-        return Optional.empty();
+    private static List<String> shuffled(final List<String> list, final Random random) {
+        final List<String> result = new ArrayList<>(list);
+        Collections.shuffle(result, random);
+        return result;
     }
 }
@@ -0,0 +1,269 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import com.google.gson.Gson;
+import edu.illinois.cs.dt.tools.asm.StaticFieldVisitor;
+import edu.illinois.cs.dt.tools.asm.StaticFieldsCountManager;
+import edu.illinois.cs.dt.tools.constants.StartsConstants;
+import edu.illinois.cs.dt.tools.utility.MD5;
+import edu.illinois.starts.asm.ClassReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Counts of the mutable static fields of classes (see StaticFieldVisitor), kept in the STARTS artifacts directory
+ * so that classes are only read again when the jar or class file they come from changed.
+ *
+ * Each jar or class file is keyed by its path and checked against its size, modification time and (if those
+ * differ) MD5. A jar that changed loses all its counts. Classes are only read when they are first looked up,
+ * and all the classes looked up in one jar are read with the jar opened once.
+ */
+public class StaticFieldIndex {
+    private static final Gson GSON = new Gson();
+
+    public static StaticFieldIndex load(final File artifactsDir) {
+        final Path path = artifactsDir.toPath().resolve(StartsConstants.STATIC_FIELD_INDEX);
+        Index index = null;
+
+        if (Files.exists(path)) {
+            try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                index = GSON.fromJson(reader, Index.class);
+            } catch (Exception e) {
+                System.out.println("[WARNING] Could not read static field index " + path + ", rebuilding it: " + e);
+            }
+        }
+
+        return new StaticFieldIndex(path, index == null ? new Index() : index);
+    }
+
+    private final Path path;
+    private final Index index;
+    // Sources whose checksum was already checked, so each is only checked once per run
+    private final Set<String> checked = new HashSet<>();
+    private boolean changed = false;
+
+    private int hits = 0;
+    private int misses = 0;
+
+    private StaticFieldIndex(final Path path, final Index index) {
+        this.path = path;
+        this.index = index;
+    }
+
+    /**
+     * Same as ODFlakyTestFinder.findStaticFieldFromJar.
+     */
+    public Map<String, Integer> countsInJar(final String jarPath, final String entryName) {
+        return countsInJar(jarPath, Collections.singleton(entryName)).get(entryName);
+    }
+
+    /**
+     * @return For each entry, the static field count of the classes in it (like findStaticFieldFromJar)
+     */
+    public Map<String, Map<String, Integer>> countsInJar(final String jarPath, final Collection<String> entryNames) {
+        final Map<String, Map<String, Integer>> result = new HashMap<>();
+        final Source source = source(jarPath);
+
+        if (source == null) {
+            for (final String entryName : entryNames) {
+                result.put(entryName, new HashMap<>());
+            }
+            return result;
+        }
+
+        final Set<String> missing = new LinkedHashSet<>();
+        for (final String entryName : entryNames) {
+            if (source.classes.containsKey(entryName)) {
+                hits++;
+            } else {
+                missing.add(entryName);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            misses += missing.size();
+            changed = true;
+            readJar(jarPath, missing, source);
+        }
+
+        for (final String entryName : entryNames) {
+            result.put(entryName, new HashMap<>(source.classes.get(entryName)));
+        }
+
+        return result;
+    }
+
+    /**
+     * Same as ODFlakyTestFinder.findStaticFieldFromClass.
+     */
+    public Map<String, Integer> countsInClass(final String classFilePath) {
+        if (!classFilePath.endsWith(StartsConstants.CLASS_EXTENSION)) {
+            return new HashMap<>();
+        }
+
+        final Source source = source(classFilePath);
+        if (source == null) {
+            return new HashMap<>();
+        }
+
+        // A class file is its only entry
+        if (source.classes.containsKey(StartsConstants.EMPTY)) {
+            hits++;
+        } else {
+            misses++;
+            changed = true;
+            source.classes.put(StartsConstants.EMPTY, ODFlakyTestFinder.findStaticFieldFromClass(classFilePath));
+        }
+
+        return new HashMap<>(source.classes.get(StartsConstants.EMPTY));
+    }
+
+    public void save() {
+        if (!changed) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(path.getParent());
+            try (final BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                GSON.toJson(index, writer);
+            }
+            changed = false;
+        } catch (IOException e) {
+            System.out.println("[WARNING] Could not write static field index " + path + ": " + e);
+        }
+    }
+
+    public String summary() {
+        return hits + " classes from the static field index, " + misses + " read";
+    }
+
+    /**
+     * The indexed counts of the jar or class file, cleared first if it changed since they were indexed.
+     *
+     * @return null if the file cannot be read
+     */
+    private Source source(final String sourcePath) {
+        final Source indexed = index.sources.get(sourcePath);
+
+        if (checked.contains(sourcePath)) {
+            return indexed;
+        }
+
+        final Path file = new File(sourcePath).toPath();
+        try {
+            final long size = Files.size(file);
+            final long mtime = Files.getLastModifiedTime(file).toMillis();
+
+            checked.add(sourcePath);
+
+            if (indexed != null && indexed.size == size && indexed.mtime == mtime) {
+                return indexed;
+            }
+
+            final String hash = MD5.md5(file);
+            changed = true;
+
+            if (indexed != null && hash.equals(indexed.hash)) {
+                // Same content, so just remember the new size and time
+                indexed.size = size;
+                indexed.mtime = mtime;
+                return indexed;
+            }
+
+            final Source source = new Source(size, mtime, hash);
+            index.sources.put(sourcePath, source);
+            return source;
+        } catch (IOException e) {
+            System.out.println("[WARNING] Could not read " + sourcePath + ": " + e);
+            return null;
+        }
+    }
+
+    private static void readJar(final String jarPath, final Set<String> entryNames, final Source source) {
+        try (final JarFile jarFile = new JarFile(jarPath)) {
+            final Set<String> notFound = new HashSet<>();
+
+            for (final String entryName : entryNames) {
+                final JarEntry jarEntry = jarFile.getJarEntry(entryName);
+
+                if (jarEntry == null) {
+                    notFound.add(entryName);
+                } else {
+                    source.classes.put(entryName, counts(jarFile, jarEntry));
+                }
+            }
+
+            // Like findStaticFieldFromJar, fall back to the first entry that ends with the name
+            if (!notFound.isEmpty()) {
+                final Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements() && !notFound.isEmpty()) {
+                    final JarEntry jarEntry = entries.nextElement();
+
+                    for (final String entryName : new HashSet<>(notFound)) {
+                        if (jarEntry.getName().endsWith(entryName)) {
+                            source.classes.put(entryName, counts(jarFile, jarEntry));
+                            notFound.remove(entryName);
+                        }
+                    }
+                }
+
+                for (final String entryName : notFound) {
+                    source.classes.put(entryName, new HashMap<>());
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+
+            for (final String entryName : entryNames) {
+                source.classes.putIfAbsent(entryName, new HashMap<>());
+            }
+        }
+    }
+
+    private static Map<String, Integer> counts(final JarFile jarFile, final JarEntry jarEntry) throws IOException {
+        final StaticFieldsCountManager manager = new StaticFieldsCountManager();
+
+        try (final InputStream inputStream = jarFile.getInputStream(jarEntry)) {
+            final ClassReader cr = new ClassReader(inputStream);
+            cr.accept(new StaticFieldVisitor(manager), 0);
+        } catch (UnsupportedOperationException | IllegalArgumentException ignored) { }
+
+        return manager.nameToDeclaredCount;
+    }
+
+    private static class Index {
+        // Key: path of the jar or class file
+        private final Map<String, Source> sources = new HashMap<>();
+    }
+
+    private static class Source {
+        private long size;
+        private long mtime;
+        private final String hash;
+        // Key: entry name in the jar (empty for a class file). Value: the counts StaticFieldVisitor found in it
+        private final Map<String, Map<String, Integer>> classes = new HashMap<>();
+
+        private Source(final long size, final long mtime, final String hash) {
+            this.size = size;
+            this.mtime = mtime;
+            this.hash = hash;
+        }
+    }
+}
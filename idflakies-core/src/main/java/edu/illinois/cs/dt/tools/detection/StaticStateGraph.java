@@ -0,0 +1,131 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import edu.illinois.cs.dt.tools.constants.StartsConstants;
+import edu.illinois.cs.dt.tools.utility.FileUtil;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which test classes share state through a class with mutable (non-final) static fields, i.e., both depend on
+ * such a class according to the STARTS dependencies in .starts/deps.zlc.
+ *
+ * The classes with static fields are read from .starts/affected-classes-with-static-fields (written by
+ * testrunner:select). If that file does not exist, the class files of the module are checked instead (through the
+ * StaticFieldIndex in .starts).
+ */
+public class StaticStateGraph {
+    public static StaticStateGraph load(final Path basedir, final List<String> testClasses) {
+        final StaticStateGraph graph = new StaticStateGraph(testClasses);
+
+        final Map<String, String[]> depTestMap;
+        try {
+            depTestMap = ODFlakyTestFinder.getDepTests(basedir.toFile());
+        } catch (FileNotFoundException | IllegalArgumentException e) {
+            System.out.println("[WARNING] Could not read the STARTS dependencies of " + basedir + ": " + e.getMessage());
+            return graph;
+        }
+
+        if (depTestMap.isEmpty()) {
+            System.out.println("[WARNING] No " + StartsConstants.ZLC_FILE + " found in " + basedir + ", run testrunner:select first");
+            return graph;
+        }
+
+        for (final String cls : classesWithStaticFields(basedir)) {
+            graph.addSharedClass(ODFlakyTestFinder.getDepTestsOfClass(cls, depTestMap));
+        }
+
+        return graph;
+    }
+
+    private static List<String> classesWithStaticFields(final Path basedir) {
+        final Path listPath = basedir.resolve(StartsConstants.STARTS_DIR_NAME).resolve(StartsConstants.CLASSES_WITH_STATICFIELDS);
+
+        try {
+            if (Files.exists(listPath)) {
+                final List<String> classes = FileUtil.readTxtFile(listPath.toFile());
+                return classes == null ? new ArrayList<>() : classes;
+            }
+        } catch (FileNotFoundException ignored) {}
+
+        final StaticFieldIndex index = StaticFieldIndex.load(basedir.resolve(StartsConstants.STARTS_DIR_NAME).toFile());
+        final List<String> result = new ArrayList<>();
+        for (final File classFile : FileUtil.findFileRec(basedir.toFile(), StartsConstants.CLASS_EXTENSION)) {
+            for (final Map.Entry<String, Integer> entry : index.countsInClass(classFile.getAbsolutePath()).entrySet()) {
+                if (entry.getValue() > 0) {
+                    result.add(entry.getKey());
+                }
+            }
+        }
+        index.save();
+        return result;
+    }
+
+    private final Map<String, Integer> classIndex = new HashMap<>();
+    // shared[i][j]: test classes i and j both depend on some class with static fields
+    private final boolean[][] shared;
+    private int sharedClasses = 0;
+    private long pairs = 0;
+
+    public StaticStateGraph(final List<String> testClasses) {
+        for (int i = 0; i < testClasses.size(); i++) {
+            classIndex.put(testClasses.get(i), i);
+        }
+
+        this.shared = new boolean[testClasses.size()][testClasses.size()];
+    }
+
+    /**
+     * @param depTests The test classes that depend on one class with static fields
+     */
+    public void addSharedClass(final Iterable<String> depTests) {
+        final List<Integer> indices = new ArrayList<>();
+        for (final String depTest : depTests) {
+            final Integer i = classIndex.get(depTest);
+            if (i != null) {
+                indices.add(i);
+            }
+        }
+
+        if (indices.size() < 2) {
+            return;
+        }
+
+        sharedClasses++;
+        for (final int i : indices) {
+            for (final int j : indices) {
+                if (i != j && !shared[i][j]) {
+                    shared[i][j] = true;
+                    pairs++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexed like the test classes the graph was made with.
+     */
+    public boolean[][] shared() {
+        return shared;
+    }
+
+    /**
+     * @return The number of classes with static fields that at least two of the test classes depend on
+     */
+    public int sharedClasses() {
+        return sharedClasses;
+    }
+
+    /**
+     * @return The number of ordered pairs of test classes that share state
+     */
+    public long pairs() {
+        return pairs;
+    }
+}
@@ -2,96 +2,105 @@ package edu.illinois.cs.dt.tools.detection;
 
 import com.google.common.collect.Lists;
 import com.google.common.math.IntMath;
-import com.google.gson.Gson;
 import com.reedoei.eunomia.collections.ListUtil;
-import com.reedoei.eunomia.collections.RandomList;
-import com.reedoei.eunomia.io.files.FileUtil;
-import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
-import edu.illinois.cs.dt.tools.utility.MD5;
-import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.dt.tools.utility.OrderHash;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Random;
 import java.util.stream.Collectors;
 
-public class TestShuffler {
+public class TestShuffler implements OrderGenerator {
     public static String className(final String testName) {
         return testName.substring(0, testName.lastIndexOf('.'));
     }
 
     private final HashMap<String, List<String>> classToMethods;
+    private final List<String> classes;
 
     private final String type;
     private final List<String> tests;
-    private final Set<String> alreadySeenOrders = new HashSet<>();
+    private final long seed;
+    // Key: OrderHash.hash of an order handed out before. Shuffled orders are kept as their round, since they can be
+    // made again from the seed; only reversed orders are kept as is. Hashes can collide, so a match is only
+    // a repeat if the orders are actually the same.
+    private final Map<Long, List<Integer>> seenRounds = new HashMap<>();
+    private final Map<Long, List<List<String>>> seenReversedOrders = new HashMap<>();
+
+    public TestShuffler(final String type, final List<String> tests) {
+        this(type, tests, OrderGeneratorFactory.baseSeed());
+    }
 
-    public TestShuffler(final String type, final int rounds, final List<String> tests) {
+    public TestShuffler(final String type, final List<String> tests, final long seed) {
         this.type = type;
         this.tests = tests;
+        this.seed = seed;
 
         classToMethods = new HashMap<>();
+        classes = new ArrayList<>();
 
         for (final String test : tests) {
             final String className = className(test);
 
             if (!classToMethods.containsKey(className)) {
                 classToMethods.put(className, new ArrayList<>());
+                classes.add(className);
             }
 
             classToMethods.get(className).add(test);
         }
     }
 
-    private String historicalType() {
-        if (type.equals("random")) {
-            return Configuration.config().getProperty("detector.random.historical_type", "random-class");
-        } else {
-
-            return Configuration.config().getProperty("detector.random.historical_type", "random");
-        }
-    }
-
     public List<String> shuffledOrder(final int i,
                                       final TestRunResult lastRandomResult,
                                       final boolean useRevPassing) {
-        if (useRevPassing) {
+        // A run that stopped early (see InstrumentingSmartRunner.runListComparing) only has part of the order
+        if (useRevPassing || lastRandomResult.testOrder().size() < tests.size()) {
             return shuffledOrder(i);
         } else {
             List<String> revPassingOrder = Lists.reverse(lastRandomResult.testOrder());
-            String md5 = MD5.md5(String.join("", revPassingOrder));
-            if (alreadySeenOrders.contains(md5)) {
+            final long orderHash = OrderHash.hash(revPassingOrder);
+            if (alreadySeen(orderHash, revPassingOrder)) {
                 return shuffledOrder(i);
             } else {
-                alreadySeenOrders.add(md5);
+                seenReversedOrders.computeIfAbsent(orderHash, h -> new ArrayList<>()).add(revPassingOrder);
                 return revPassingOrder;
             }
         }
     }
 
     public List<String> shuffledOrder(final int i) {
-        if (type.startsWith("reverse")) {
-            return reverseOrder();
+        final List<String> order = order(i);
+        seenRounds.computeIfAbsent(OrderHash.hash(order), h -> new ArrayList<>()).add(i);
+        return order;
+    }
+
+    private boolean alreadySeen(final long orderHash, final List<String> order) {
+        for (final int round : seenRounds.getOrDefault(orderHash, Collections.emptyList())) {
+            if (order(round).equals(order)) {
+                return true;
+            }
         }
 
-        final Path historicalRun = DetectorPathManager.detectionRoundPath(historicalType(), i);
+        return seenReversedOrders.getOrDefault(orderHash, Collections.emptyList()).contains(order);
+    }
 
-        try {
-            // look up whether a previous execution of the plugin generated orders for this round already
-            // if so, then run the same revealed order as before
-            if (Files.exists(historicalRun)) {
-                return generateHistorical(readHistorical(historicalRun));
-            }
-        } catch (IOException ignored) {}
+    /**
+     * The order for round i. Since random and random-class shuffle the classes the same way for the same round,
+     * random-class reruns the class order of the corresponding random round (when both use the same seed).
+     */
+    @Override
+    public List<String> order(final int i) {
+        if (type.startsWith("reverse")) {
+            return reverseOrder();
+        }
 
-        return generateShuffled();
+        return generateShuffled(OrderGenerator.random(seed, i));
     }
 
     private List<String> reverseOrder() {
@@ -105,30 +114,10 @@ public class TestShuffler {
         }
     }
 
-    private List<String> readHistorical(final Path historicalRun) throws IOException {
-        final DetectionRound detectionRound = new Gson().fromJson(FileUtil.readFile(historicalRun), DetectionRound.class);
-
-        return detectionRound.testRunIds().stream()
-                .flatMap(RunnerPathManager::resultFor)
-                .findFirst()
-                .map(TestRunResult::testOrder)
-                .orElse(new ArrayList<>());
-    }
+    private List<String> generateShuffled(final Random random) {
+        final List<String> classOrder = new ArrayList<>(classes);
+        Collections.shuffle(classOrder, random);
 
-    private List<String> generateHistorical(final List<String> historicalOrder) {
-        if ("random-class".equals(type)) {
-            return generateWithClassOrder(classOrder(historicalOrder));
-        } else {
-            alreadySeenOrders.add(MD5.md5(String.join("", historicalOrder)));
-            return historicalOrder;
-        }
-    }
-
-    private List<String> generateShuffled() {
-        return generateWithClassOrder(new RandomList<>(classToMethods.keySet()).shuffled());
-    }
-
-    private List<String> generateWithClassOrder(final List<String> classOrder) {
         final List<String> fullTestOrder = new ArrayList<>();
 
         for (final String className : classOrder) {
@@ -137,19 +126,15 @@ public class TestShuffler {
                 fullTestOrder.addAll(classToMethods.get(className));
             } else {
                 // the standard "random" type, will shuffle both
-                fullTestOrder.addAll(new RandomList<>(classToMethods.get(className)).shuffled());
+                final List<String> methods = new ArrayList<>(classToMethods.get(className));
+                Collections.shuffle(methods, random);
+                fullTestOrder.addAll(methods);
             }
         }
 
-        alreadySeenOrders.add(MD5.md5(String.join("", fullTestOrder)));
-
         return fullTestOrder;
     }
 
-    private List<String> classOrder(final List<String> historicalOrder) {
-        return historicalOrder.stream().map(TestShuffler::className).distinct().collect(Collectors.toList());
-    }
-
     @Deprecated
     private int permutations(final int rounds) {
         return permutations(IntMath.factorial(classToMethods.keySet().size()), classToMethods.values().iterator(), rounds);
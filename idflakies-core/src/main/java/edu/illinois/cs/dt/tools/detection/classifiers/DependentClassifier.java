@@ -1,19 +1,45 @@
 package edu.illinois.cs.dt.tools.detection.classifiers;
 
+import edu.illinois.cs.dt.tools.runner.data.SharedOrder;
 import edu.illinois.cs.dt.tools.runner.data.TestRun;
 import edu.illinois.cs.testrunner.data.results.Result;
 import edu.illinois.cs.testrunner.data.results.TestResult;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * Finds the tests that had more than one result, keeping the first run that gave each result.
+ *
+ * Tests are numbered as they are seen and their results are kept as a bitmask of Result ordinals. Each first
+ * result is kept as (test, result, run), where run refers to the id and (interned) order of the run, and only the
+ * runs that gave some test a new result are kept at all. So memory grows with tests times distinct results,
+ * not with the number of runs.
+ */
 public class DependentClassifier implements Classifier {
-    private final Map<String, Set<Result>> knownResults = new HashMap<>();
-    private final Map<String, Set<TestRun>> dependentRuns = new HashMap<>();
+    private static final Result[] RESULTS = Result.values();
+
+    private final Map<String, Integer> testIds = new HashMap<>();
+    private final List<String> testNames = new ArrayList<>();
+    // Indexed by test id: bit i is set if the test had the result with ordinal i
+    private int[] knownResults = new int[16];
+
+    // The first run that gave each test each of its results, one entry per (test, result)
+    private int[] entryTest = new int[16];
+    private int[] entryResult = new int[16];
+    private int[] entryRun = new int[16];
+    private int entries = 0;
+
+    private final List<String> runIds = new ArrayList<>();
+    private final List<SharedOrder> runOrders = new ArrayList<>();
+
     private final boolean skipAfterFirstFailure;
 
     public DependentClassifier(final boolean skipAfterFirstFailure) {
@@ -22,45 +48,99 @@ public class DependentClassifier implements Classifier {
 
     @Override
     public void update(final TestRunResult testRunResult) {
+        int run = -1;
+
         for (final Map.Entry<String, TestResult> entry : testRunResult.results().entrySet()) {
-            final String testName = entry.getKey();
-            final TestResult result = entry.getValue();
+            final int test = testId(entry.getKey());
+            final Result result = entry.getValue().result();
+            final int bit = 1 << result.ordinal();
 
-            final Set<Result> results = knownResults.getOrDefault(testName, new HashSet<>());
+            if ((knownResults[test] & bit) == 0) {
+                knownResults[test] |= bit;
 
-            if (!results.contains(result.result())) {
-                results.add(result.result());
+                if (run < 0) {
+                    run = runIds.size();
+                    runIds.add(testRunResult.id());
+                    runOrders.add(SharedOrder.of(testRunResult.testOrder()));
+                }
 
-                final Set<TestRun> runs = dependentRuns.getOrDefault(testName, new HashSet<>());
-                runs.add(new TestRun(testRunResult.testOrder(), result.result(), testRunResult.id()));
-                dependentRuns.put(testName, runs);
+                addEntry(test, result.ordinal(), run);
             }
 
-            knownResults.put(testName, results);
-
             // Skip everything after the first failure because it's unreliable
             if (skipAfterFirstFailure) {
-                if (!result.result().equals(Result.PASS)) {
+                if (!result.equals(Result.PASS)) {
                     break;
                 }
             }
         }
     }
 
+    /**
+     * The first run that gave each test each of its results, made from the compact state on every call.
+     */
     public Map<String, Set<TestRun>> dependentRuns() {
+        final Map<String, Set<TestRun>> dependentRuns = new LinkedHashMap<>();
+
+        for (int i = 0; i < entries; i++) {
+            final int run = entryRun[i];
+            dependentRuns.computeIfAbsent(testNames.get(entryTest[i]), t -> new HashSet<>())
+                    .add(new TestRun(runOrders.get(run).order(), RESULTS[entryResult[i]], runIds.get(run)));
+        }
+
         return dependentRuns;
     }
 
     public Set<String> dependentTests(final Set<String> nonorderTests) {
-        return knownResults.keySet().stream()
-                .filter(t -> knownResults.get(t).size() > 1)
-                .filter(t -> !nonorderTests.contains(t))
-                .collect(Collectors.toSet());
+        final Set<String> dependentTests = new HashSet<>();
+
+        for (int test = 0; test < testNames.size(); test++) {
+            if (Integer.bitCount(knownResults[test]) > 1 && !nonorderTests.contains(testNames.get(test))) {
+                dependentTests.add(testNames.get(test));
+            }
+        }
+
+        return dependentTests;
+    }
+
+    private int testId(final String testName) {
+        final Integer id = testIds.get(testName);
+
+        if (id != null) {
+            return id;
+        }
+
+        final int newId = testNames.size();
+        testIds.put(testName, newId);
+        testNames.add(testName);
+
+        if (newId >= knownResults.length) {
+            knownResults = Arrays.copyOf(knownResults, knownResults.length * 2);
+        }
+
+        return newId;
+    }
+
+    private void addEntry(final int test, final int result, final int run) {
+        if (entries >= entryTest.length) {
+            entryTest = Arrays.copyOf(entryTest, entryTest.length * 2);
+            entryResult = Arrays.copyOf(entryResult, entryResult.length * 2);
+            entryRun = Arrays.copyOf(entryRun, entryRun.length * 2);
+        }
+
+        entryTest[entries] = test;
+        entryResult[entries] = result;
+        entryRun[entries] = run;
+        entries++;
     }
 
     @Override
     public void close() throws Exception {
-        knownResults.clear();
-        dependentRuns.clear();
+        testIds.clear();
+        testNames.clear();
+        knownResults = new int[16];
+        entries = 0;
+        runIds.clear();
+        runOrders.clear();
     }
 }
@@ -1,40 +1,45 @@
 package edu.illinois.cs.dt.tools.detection.classifiers;
 
-import com.reedoei.eunomia.collections.ListUtil;
-import edu.illinois.cs.dt.tools.runner.data.TestRun;
-import edu.illinois.cs.dt.tools.utility.MD5;
+import edu.illinois.cs.dt.tools.runner.data.SharedOrder;
+import edu.illinois.cs.dt.tools.utility.LongIntHashMap;
+import edu.illinois.cs.dt.tools.utility.OrderHash;
+import edu.illinois.cs.testrunner.data.results.Result;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 public class NonorderClassifier implements Classifier {
+    private static final Result[] RESULTS = Result.values();
+    private static final int MISSING = -1;
+
     private final Set<String> flaky = new HashSet<>();
-    private final Map<String, Map<String, TestRun>> knownRuns = new HashMap<>();
+    // Key: hash of the order up to and including the test, so it identifies both the test and the tests before it.
+    // Value: the ordinal of the first result the test had after that prefix
+    private final LongIntHashMap knownResults = new LongIntHashMap();
 
     @Override
     public void update(final TestRunResult testRunResult) {
+        // Hashes of every prefix of the order, computed in one pass
+        final SharedOrder order = SharedOrder.of(testRunResult.testOrder());
+        final long[] prefixHashes = OrderHash.prefixes(order.order());
+
         testRunResult.results().forEach((testName, result) -> {
             // If we already know it's non-order dependent, just leave
             if (flaky.contains(testName)) {
                 return;
             }
 
-            final Map<String, TestRun> runs = knownRuns.getOrDefault(testName, new HashMap<>());
-            final String orderHash = MD5.hashOrder(ListUtil.before(testRunResult.testOrder(), testName));
-
-            final TestRun expectedResult = runs.get(orderHash);
+            final long orderHash = OrderHash.next(prefixHashes[Math.max(0, order.indexOf(testName))], testName);
+            final int expectedResult = knownResults.get(orderHash, MISSING);
 
-            if (expectedResult != null) {
+            if (expectedResult != MISSING) {
                 // If the order is the same, and the results don't match, must be non-order dependent
-                if (!result.result().equals(expectedResult.result())) {
+                if (!result.result().equals(RESULTS[expectedResult])) {
                     flaky.add(testName);
                 }
             } else {
-                runs.put(orderHash, new TestRun(testRunResult.testOrder(), result.result(), testRunResult.id()));
-                knownRuns.put(testName, runs);
+                knownResults.put(orderHash, result.result().ordinal());
             }
         });
     }
@@ -45,7 +50,7 @@ public class NonorderClassifier implements Classifier {
 
     @Override
     public void close() throws Exception {
-        flaky.clear();;
-        knownRuns.clear();
+        flaky.clear();
+        knownResults.clear();
     }
 }
@@ -1,9 +1,13 @@
 package edu.illinois.cs.dt.tools.detection.detectors;
 
+import edu.illinois.cs.dt.tools.detection.ShardManifest;
 import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
 import edu.illinois.cs.testrunner.configuration.Configuration;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
 public class DetectorFactory {
     public static String detectorType() {
@@ -15,6 +19,15 @@ public class DetectorFactory {
     }
 
     public static Detector makeDetector(final InstrumentingSmartRunner runner, final List<String> tests, final int rounds) {
+        final Optional<Path> manifest = ShardManifest.manifestPath();
+        if (manifest.isPresent()) {
+            try {
+                return new ShardDetector(runner, ShardManifest.fromFile(manifest.get()));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
         if (detectorType().startsWith("random")) {
             return new RandomDetector(detectorType(), runner, rounds, tests);
         } else if (detectorType().startsWith("reverse")) {
@@ -23,6 +36,10 @@ public class DetectorFactory {
             return new OriginalDetector(runner, rounds, tests);
         } else if (detectorType().equals("smart-shuffle")) {
             return new SmartShuffleDetector(runner, rounds, tests, detectorType());
+        } else if (detectorType().equals("pairwise")) {
+            return new PairwiseDetector(runner, rounds, tests, detectorType());
+        } else if (detectorType().equals("guided")) {
+            return new GuidedDetector(runner, rounds, tests, detectorType());
         }
 
         return new RandomDetector("random", runner, rounds, tests);
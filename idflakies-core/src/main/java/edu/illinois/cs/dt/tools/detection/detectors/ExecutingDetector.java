@@ -8,7 +8,10 @@ import com.reedoei.eunomia.string.StringUtil;
 import edu.illinois.cs.dt.tools.detection.DetectionRound;
 import edu.illinois.cs.dt.tools.detection.DetectorPathManager;
 import edu.illinois.cs.dt.tools.detection.DetectorUtil;
+import edu.illinois.cs.dt.tools.detection.PolluterMinimizer;
 import edu.illinois.cs.dt.tools.detection.filters.Filter;
+import edu.illinois.cs.dt.tools.detection.filters.MinimizeFilter;
+import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 import edu.illinois.cs.dt.tools.runner.data.DependentTestList;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
@@ -33,30 +36,87 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
 
     protected int rounds;
     private List<Filter> filters = new ArrayList<>();
+    // Always goes after the detector's own filters, so only tests that made it through them get minimized
+    private final Filter minimizeFilter;
     protected final String name;
     protected final AtomicInteger absoluteRound = new AtomicInteger(0);
+    private final int forks = Configuration.config().getProperty("dt.detector.parallel.forks", 1);
+    // Stop a round once this many tests differ from the intended results (0 means always run the whole order)
+    private final int earlyAbortDivergences =
+            Configuration.config().getProperty("dt.detector.early_abort.divergences", countOnlyFirstFailure ? 1 : 0);
 
     private final Stopwatch stopwatch = Stopwatch.createUnstarted();
+    private RoundBudget budget = null;
 
     public ExecutingDetector(final Runner runner, final int rounds, final String name) {
         this.runner = runner;
         this.rounds = rounds;
         this.name = name;
+        this.minimizeFilter = PolluterMinimizer.enabled() ? new MinimizeFilter(runner) : null;
     }
 
     public abstract DetectionRound results() throws Exception;
 
+    /**
+     * The order to run for the given round, if this detector can decide it before earlier rounds finish.
+     * Detectors that return an order here can run several rounds at once (see dt.detector.parallel.forks),
+     * and must also provide intendedResult. Orders are always requested in round order.
+     */
+    protected List<String> plannedOrder(final int round) {
+        return null;
+    }
+
+    /**
+     * Whether the tests this detector finds are order-dependent, so their polluters can be minimized
+     * (see dt.minimize and PolluterMinimizer).
+     */
+    protected boolean minimizes() {
+        return true;
+    }
+
+    /**
+     * Whether rounds count towards the total even when they find new tests
+     * (otherwise finding a test starts the count over).
+     */
+    protected boolean roundsAreTotal() {
+        return Boolean.parseBoolean(Configuration.config().getProperty("dt.detector.roundsemantics.total", "false"));
+    }
+
+    /**
+     * The results that the orders from plannedOrder are compared against,
+     * or null if this detector does not plan its orders ahead of time.
+     */
+    protected TestRunResult intendedResult() {
+        return null;
+    }
+
     protected TestRunResult runList(final List<String> tests) {
         return runner.runList(tests).get();
     }
 
+    /**
+     * Runs the tests, but lets the runner stop once dt.detector.early_abort.divergences tests have
+     * a result different from the intended one, since the rest of the order would not change the round.
+     */
+    protected TestRunResult runList(final List<String> tests, final TestRunResult intended) {
+        if (earlyAbortDivergences > 0 && runner instanceof InstrumentingSmartRunner) {
+            return ((InstrumentingSmartRunner) runner).runListComparing(tests, intended, earlyAbortDivergences).get();
+        }
+
+        return runList(tests);
+    }
+
     public DetectionRound makeDts(final TestRunResult intended, final TestRunResult revealed) {
+        return makeDts(intended, revealed, stopwatch.elapsed(TimeUnit.NANOSECONDS) / 1E9);
+    }
+
+    public DetectionRound makeDts(final TestRunResult intended, final TestRunResult revealed, final double roundTime) {
         final List<DependentTest> result = DetectorUtil.flakyTests(intended, revealed, countOnlyFirstFailure);
 
         return new DetectionRound(Collections.singletonList(revealed.id()),
                 result,
                 filter(result, absoluteRound.get()).collect(Collectors.toList()),
-                stopwatch.elapsed(TimeUnit.NANOSECONDS) / 1E9);
+                roundTime);
     }
 
     public ExecutingDetector addFilter(final Filter filter) {
@@ -65,14 +125,29 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
         return this;
     }
 
+    /**
+     * Lets the budget decide when to stop, instead of running a fixed number of rounds (see RoundBudget).
+     */
+    public ExecutingDetector withBudget(final RoundBudget budget) {
+        this.budget = budget;
+
+        return this;
+    }
+
     @Override
     public Stream<DependentTest> detect() {
         return Streams.stream(new RunnerIterator());
     }
 
     private Stream<DependentTest> filter(List<DependentTest> dts, final int absoluteRound) {
+        final List<Filter> allFilters = new ArrayList<>(filters);
+        if (minimizeFilter != null && minimizes()) {
+            allFilters.add(minimizeFilter);
+        }
+
         if (!dts.isEmpty()) {
-            for (final Filter filter : filters) {
+            for (final Filter filter : allFilters) {
+                filter.prepare(dts, absoluteRound);
                 dts = dts.stream().filter(t -> filter.keep(t, absoluteRound)).collect(Collectors.toList());
             }
         }
@@ -101,21 +176,108 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
         private final long origStartTimeMs = System.currentTimeMillis();
         private long startTimeMs = System.currentTimeMillis();
         private long previousStopTimeMs = System.currentTimeMillis();
-        private boolean roundsAreTotal = Boolean.parseBoolean(Configuration.config().getProperty("dt.detector.roundsemantics.total", "false"));
+        private final boolean roundsAreTotal = roundsAreTotal();
 
         private int i = 0;
 
         private final List<DependentTest> result = new ArrayList<>();
 
+        private ParallelRoundExecutor executor = null;
+
         @Override
         public boolean hasNext() {
-            while (i < rounds && result.isEmpty()) {
+            if (budget != null) {
+                budget.start();
+            }
+
+            while (moreRounds() && result.isEmpty()) {
                 generate();
             }
 
+            if (!moreRounds()) {
+                shutdownExecutor();
+
+                if (budget != null) {
+                    budget.finish();
+                }
+            }
+
             return !result.isEmpty();
         }
 
+        private boolean moreRounds() {
+            return budget == null ? i < rounds : !budget.shouldStop();
+        }
+
+        private int roundsLeft() {
+            return budget == null ? rounds - i : budget.roundsLeft();
+        }
+
+        private void shutdownExecutor() {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+
+        private int inFlight() {
+            return executor == null ? 0 : executor.inFlight();
+        }
+
+        private DetectionRound runRound() throws Exception {
+            if (forks > 1) {
+                final DetectionRound planned = nextPlannedRound();
+
+                if (planned != null) {
+                    return planned;
+                }
+            }
+
+            stopwatch.reset().start();
+            final DetectionRound result = results();
+            stopwatch.stop();
+
+            return result;
+        }
+
+        /**
+         * Keeps up to dt.detector.parallel.forks rounds in flight and returns the oldest one once it finishes.
+         * The filters and round files still see the rounds one at a time, in absoluteRound order.
+         * Returns null if the detector does not plan its orders ahead of time.
+         */
+        private DetectionRound nextPlannedRound() throws Exception {
+            // Never run more rounds than we have left, so nothing is still running when we stop
+            final TestRunResult intended = intendedResult();
+
+            while (intended != null && inFlight() < forks && inFlight() < roundsLeft()) {
+                final List<String> order = plannedOrder(absoluteRound.get() + inFlight());
+
+                if (order == null) {
+                    break;
+                }
+
+                if (executor == null) {
+                    executor = new ParallelRoundExecutor(runner, forks);
+                }
+
+                executor.submit(order, intended, earlyAbortDivergences);
+            }
+
+            if (inFlight() == 0) {
+                return null;
+            }
+
+            final ParallelRoundExecutor.RoundRun run = executor.next();
+
+            // The filters rerun tests on the main runner, so let the other rounds finish first instead of
+            // verifying while the forks compete with it
+            if (!DetectorUtil.flakyTests(intended, run.result(), countOnlyFirstFailure).isEmpty()) {
+                executor.awaitInFlight();
+            }
+
+            return makeDts(intended, run.result(), run.roundTime());
+        }
+
         private DetectionRound generateDetectionRound() {
             final Path path = DetectorPathManager.detectionRoundPath(name, absoluteRound.get());
 
@@ -130,9 +292,7 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
             final long stopTime = System.currentTimeMillis();
 
             try {
-                stopwatch.reset().start();
-                final DetectionRound result = results();
-                stopwatch.stop();
+                final DetectionRound result = runRound();
 
                 Files.createDirectories(path.getParent());
                 Files.write(path, result.toString().getBytes());
@@ -141,8 +301,10 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
 
                 return result;
             } catch (RuntimeException e) {
+                shutdownExecutor();
                 throw e;
             } catch (Exception e) {
+                shutdownExecutor();
                 throw new RuntimeException(e);
             }
         }
@@ -152,20 +314,26 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
 
             final double elapsed = previousStopTimeMs - startTimeMs;
             final double totalElapsed = (System.currentTimeMillis() - origStartTimeMs) / 1000.0;
-            final double estimate = elapsed / (i + 1) * (rounds - i - 1) / 1000;
+
+            if (budget != null) {
+                budget.roundFinished(round.filteredTests().size());
+            }
+            final int totalRounds = budget == null ? rounds : i + 1 + budget.roundsLeft();
+            final double estimate = elapsed / (i + 1) * (totalRounds - i - 1) / 1000;
 
             if (!round.filteredTests().dts().isEmpty()) {
                 System.out.println(
-                        buildResultString(round.filteredTests().size(), ++i, rounds,
+                        buildResultString(round.filteredTests().size(), ++i, totalRounds,
                                           elapsed / 1000, totalElapsed, estimate));
                 result.addAll(round.filteredTests().dts());
-                if (!roundsAreTotal) {
+                // With a budget, finding tests extends the saturation window instead
+                if (!roundsAreTotal && budget == null) {
                     i = 0;
                 }
                 startTimeMs = System.currentTimeMillis();
             } else {
                 System.out.println(
-                        buildResultString(round.filteredTests().size(), ++i, rounds,
+                        buildResultString(round.filteredTests().size(), ++i, totalRounds,
                                           elapsed / 1000, totalElapsed, estimate));
             }
 
@@ -0,0 +1,30 @@
+package edu.illinois.cs.dt.tools.detection.detectors;
+
+import edu.illinois.cs.dt.tools.detection.GuidedShuffler;
+import edu.illinois.cs.dt.tools.detection.OrderGeneratorFactory;
+import edu.illinois.cs.dt.tools.detection.StaticStateGraph;
+import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
+import edu.illinois.cs.dt.tools.utility.PathManager;
+
+import java.util.List;
+
+public class GuidedDetector extends PairCoveringDetector<GuidedShuffler> {
+    public GuidedDetector(final InstrumentingSmartRunner runner,
+                          final int rounds, final List<String> tests,
+                          final String type) {
+        super(runner, rounds, tests, type,
+              new GuidedShuffler(tests, OrderGeneratorFactory.baseSeed(), PathManager.modulePath()),
+              "shared-state pairs");
+
+        final StaticStateGraph graph = shuffler.graph();
+        final int needed = shuffler.minRoundsToCover();
+        System.out.println("[INFO] " + graph.pairs() + " ordered test class pairs share state through " +
+                graph.sharedClasses() + " classes with static fields, covering them takes at least " + needed + " rounds.");
+        warnIfNotCovered(needed);
+    }
+
+    @Override
+    protected long uncoveredPairs() {
+        return shuffler.uncoveredPairs();
+    }
+}
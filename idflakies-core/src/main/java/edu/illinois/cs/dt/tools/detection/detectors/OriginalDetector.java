@@ -32,6 +32,22 @@ public class OriginalDetector extends ExecutingDetector {
 
     @Override
     public DetectionRound results() throws Exception {
-        return makeDts(origResult, runList(tests));
+        return makeDts(origResult, runList(tests, origResult));
+    }
+
+    @Override
+    protected boolean minimizes() {
+        // The original order finds flaky tests, which have no polluters
+        return false;
+    }
+
+    @Override
+    protected List<String> plannedOrder(final int round) {
+        return tests;
+    }
+
+    @Override
+    protected TestRunResult intendedResult() {
+        return origResult;
     }
 }
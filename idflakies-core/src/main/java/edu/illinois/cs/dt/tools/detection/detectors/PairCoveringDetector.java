@@ -0,0 +1,64 @@
+package edu.illinois.cs.dt.tools.detection.detectors;
+
+import edu.illinois.cs.dt.tools.detection.DetectionRound;
+import edu.illinois.cs.dt.tools.detection.DetectorUtil;
+import edu.illinois.cs.dt.tools.detection.OrderGenerator;
+import edu.illinois.cs.dt.tools.detection.filters.ConfirmationFilter;
+import edu.illinois.cs.dt.tools.detection.filters.UniqueFilter;
+import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.util.List;
+
+/**
+ * Runs the orders of a shuffler that tries to run certain pairs of test classes back to back (see PairwiseDetector
+ * and GuidedDetector), and compares them against the original order.
+ */
+public abstract class PairCoveringDetector<T extends OrderGenerator> extends ExecutingDetector {
+    protected final T shuffler;
+    private final TestRunResult originalResults;
+    // What the pairs are, for the progress output
+    private final String pairs;
+
+    protected PairCoveringDetector(final InstrumentingSmartRunner runner,
+                                   final int rounds, final List<String> tests,
+                                   final String type, final T shuffler, final String pairs) {
+        super(runner, rounds, type);
+
+        this.shuffler = shuffler;
+        this.pairs = pairs;
+        this.originalResults = DetectorUtil.originalResults(tests, runner);
+
+        addFilter(new ConfirmationFilter(type, tests, runner));
+        addFilter(new UniqueFilter());
+    }
+
+    /**
+     * @return The number of pairs not covered by the orders generated so far
+     */
+    protected abstract long uncoveredPairs();
+
+    protected void warnIfNotCovered(final int roundsNeeded) {
+        if (roundsNeeded > rounds) {
+            System.out.println("[WARNING] Only running " + rounds + " rounds, so not all " + pairs + " will be covered.");
+        }
+    }
+
+    @Override
+    public DetectionRound results() throws Exception {
+        final List<String> order = shuffler.order(absoluteRound.get());
+        print(String.format("[INFO] %d %s not covered yet.%n", uncoveredPairs(), pairs));
+
+        return makeDts(originalResults, runList(order, originalResults));
+    }
+
+    @Override
+    protected List<String> plannedOrder(final int round) {
+        return shuffler.order(round);
+    }
+
+    @Override
+    protected TestRunResult intendedResult() {
+        return originalResults;
+    }
+}
@@ -0,0 +1,28 @@
+package edu.illinois.cs.dt.tools.detection.detectors;
+
+import edu.illinois.cs.dt.tools.detection.OrderGeneratorFactory;
+import edu.illinois.cs.dt.tools.detection.PairwiseShuffler;
+import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+
+import java.util.List;
+
+public class PairwiseDetector extends PairCoveringDetector<PairwiseShuffler> {
+    public PairwiseDetector(final InstrumentingSmartRunner runner,
+                            final int rounds, final List<String> tests,
+                            final String type) {
+        super(runner, rounds, tests, type,
+              new PairwiseShuffler(tests, OrderGeneratorFactory.baseSeed(),
+                      Configuration.config().getProperty("dt.detector.pairwise.methods", false)),
+              "ordered class pairs");
+
+        final int needed = shuffler.minRoundsToCover();
+        System.out.println("[INFO] Covering " + shuffler.classPairs() + " ordered class pairs takes at least " + needed + " rounds.");
+        warnIfNotCovered(needed);
+    }
+
+    @Override
+    protected long uncoveredPairs() {
+        return shuffler.uncoveredClassPairs();
+    }
+}
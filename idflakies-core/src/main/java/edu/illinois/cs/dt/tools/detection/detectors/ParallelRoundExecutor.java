@@ -0,0 +1,106 @@
+package edu.illinois.cs.dt.tools.detection.detectors;
+
+import com.google.common.base.Stopwatch;
+import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+import edu.illinois.cs.testrunner.runner.Runner;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs several detection rounds at once, each on its own fork of the runner.
+ * Results are handed back in the order the rounds were submitted, regardless of which fork finishes first.
+ */
+class ParallelRoundExecutor {
+    private final ExecutorService executor;
+    private final BlockingQueue<InstrumentingSmartRunner> idleForks;
+    private final Deque<Future<RoundRun>> inFlight = new ArrayDeque<>();
+
+    ParallelRoundExecutor(final Runner runner, final int forks) {
+        this.executor = Executors.newFixedThreadPool(forks);
+        this.idleForks = new ArrayBlockingQueue<>(forks);
+
+        for (int i = 0; i < forks; i++) {
+            idleForks.add(InstrumentingSmartRunner.fork(runner, "fork-" + i));
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    public void submit(final List<String> order, final TestRunResult intended, final int divergenceLimit) {
+        inFlight.addLast(executor.submit(() -> {
+            final InstrumentingSmartRunner fork = idleForks.take();
+
+            try {
+                final Stopwatch stopwatch = Stopwatch.createStarted();
+                final TestRunResult result = fork.runListComparing(order, intended, divergenceLimit).get();
+                return new RoundRun(result, stopwatch.elapsed(TimeUnit.NANOSECONDS) / 1E9);
+            } finally {
+                idleForks.put(fork);
+            }
+        }));
+    }
+
+    /**
+     * Waits for the oldest round still in flight.
+     */
+    public RoundRun next() throws Exception {
+        try {
+            return inFlight.removeFirst().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until every round in flight has finished, without taking any of them.
+     */
+    public void awaitInFlight() throws InterruptedException {
+        for (final Future<RoundRun> future : inFlight) {
+            try {
+                future.get();
+            } catch (ExecutionException ignored) {
+                // Rethrown by next() when the round is taken
+            }
+        }
+    }
+
+    public void shutdown() {
+        inFlight.forEach(f -> f.cancel(true));
+        inFlight.clear();
+        executor.shutdownNow();
+    }
+
+    public static class RoundRun {
+        private final TestRunResult result;
+        private final double roundTime;
+
+        private RoundRun(final TestRunResult result, final double roundTime) {
+            this.result = result;
+            this.roundTime = roundTime;
+        }
+
+        public TestRunResult result() {
+            return result;
+        }
+
+        public double roundTime() {
+            return roundTime;
+        }
+    }
+}
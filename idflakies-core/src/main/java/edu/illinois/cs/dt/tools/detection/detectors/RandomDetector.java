@@ -24,7 +24,7 @@ public class RandomDetector extends ExecutingDetector {
 
         this.tests = tests;
 
-        this.testShuffler = new TestShuffler(type, rounds, tests);
+        this.testShuffler = new TestShuffler(type, tests);
         this.origResult = DetectorUtil.originalResults(tests, runner);
 
         // Filters to be applied in order
@@ -42,10 +42,23 @@ public class RandomDetector extends ExecutingDetector {
         lastRandomResult = runList(testShuffler.shuffledOrder(absoluteRound.get(),
                                                               lastRandomResult,
                                                               // if last detection round didn't find any *new* OD test, then reverse the last (likely passing) order
-                                                              lastRandomDetectionRound == null || lastRandomResult == null || lastRandomDetectionRound.filteredTests().size() != 0));
+                                                              lastRandomDetectionRound == null || lastRandomResult == null || lastRandomDetectionRound.filteredTests().size() != 0),
+                                   origResult);
         // if we want to reverse a run with no failures or errors, then replace the line above with the following
         // lastRandomResult.results().values().stream().anyMatch(testResult -> testResult.result() == Result.FAILURE || testResult.result() == Result.ERROR)
         lastRandomDetectionRound = makeDts(origResult, lastRandomResult);
         return lastRandomDetectionRound;
     }
+
+    // When running rounds in parallel we can't wait for the last round to decide whether to reverse it,
+    // so every round is a fresh shuffle
+    @Override
+    protected List<String> plannedOrder(final int round) {
+        return testShuffler.shuffledOrder(round);
+    }
+
+    @Override
+    protected TestRunResult intendedResult() {
+        return origResult;
+    }
 }
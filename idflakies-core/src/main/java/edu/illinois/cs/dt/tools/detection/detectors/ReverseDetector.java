@@ -21,7 +21,7 @@ public class ReverseDetector extends ExecutingDetector {
         this.tests = tests;
         this.origResult = DetectorUtil.originalResults(tests, runner);
 
-        testShuffler = new TestShuffler(name, rounds, tests);
+        testShuffler = new TestShuffler(name, tests);
 
         addFilter(new UniqueFilter());
         addFilter(new VerifyFilter(name, runner));
@@ -30,6 +30,6 @@ public class ReverseDetector extends ExecutingDetector {
     @Override
     public DetectionRound results() throws Exception {
         final List<String> reversed = testShuffler.shuffledOrder(absoluteRound.get());
-        return makeDts(origResult, runList(reversed));
+        return makeDts(origResult, runList(reversed, origResult));
     }
 }
@@ -0,0 +1,205 @@
+package edu.illinois.cs.dt.tools.detection.detectors;
+
+import edu.illinois.cs.testrunner.configuration.Configuration;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Decides how many detection rounds a module gets based on how fast it is still finding new tests
+ * (enabled with dt.detector.adaptive).
+ *
+ * A module stops once it has gone a whole saturation window without a new test. The window is twice the average
+ * number of rounds between finds so far, but at least dt.detector.adaptive.window rounds, so modules that find
+ * tests rarely are given longer before they count as saturated. A module also stops when it runs out of time.
+ * Time a module does not use is put in a time bank file shared by all modules of the build. A module only draws
+ * on the bank once its own share of detector.timeout runs out while it is still finding tests (it found one in
+ * its current window), and then only takes another window's worth of rounds at a time, so the banked time goes
+ * to the modules that are finding tests rather than to whichever module starts first.
+ */
+public class RoundBudget {
+    public static boolean enabled() {
+        return Configuration.config().getProperty("dt.detector.adaptive", false);
+    }
+
+    // FileChannel.lock only keeps other processes out; modules built on threads of the same JVM (e.g., mvn -T)
+    // would get an OverlappingFileLockException instead of waiting, so they take turns on this first
+    private static final Object BANK_LOCK = new Object();
+
+    private final int minWindow = Math.max(1, Configuration.config().getProperty("dt.detector.adaptive.window", 10));
+    // Bank entries older than the global timeout are from an earlier build
+    private final double bankExpiry = Configuration.config().getProperty("detector.timeout", 6 * 3600.0);
+
+    private final int rounds;
+    private final double allotment;
+    private final Path bank;
+
+    private long startTimeMs = -1;
+    private double withdrawn = 0;
+    private boolean finished = false;
+
+    private int roundsRun = 0;
+    private int lastFindRound = 0;
+    private int findingRounds = 0;
+
+    /**
+     * @param rounds The number of rounds the module would get without adaptive budgeting
+     * @param allotment The module's share of detector.timeout in seconds, or NaN if unknown
+     *                  (then the module gets as much time as its rounds would take)
+     * @param bank The time bank file
+     */
+    public RoundBudget(final int rounds, final double allotment, final Path bank) {
+        this.rounds = rounds;
+        this.allotment = allotment;
+        this.bank = bank;
+    }
+
+    public void start() {
+        if (startTimeMs < 0) {
+            startTimeMs = System.currentTimeMillis();
+        }
+    }
+
+    public void roundFinished(final int newTests) {
+        roundsRun++;
+
+        if (newTests > 0) {
+            findingRounds++;
+            lastFindRound = roundsRun;
+        }
+    }
+
+    public boolean saturated() {
+        return roundsRun - lastFindRound >= window();
+    }
+
+    public boolean exhausted() {
+        if (roundsRun == 0 || elapsed() + meanRoundTime() <= deadline()) {
+            return false;
+        }
+
+        if (!finished && findingRounds > 0 && !saturated()) {
+            final double taken = withdraw(window() * meanRoundTime());
+
+            if (taken > 0) {
+                withdrawn += taken;
+                System.out.printf("[INFO] Still finding tests, adding %.1f seconds left over by other modules to the detection budget.%n", taken);
+            }
+        }
+
+        return elapsed() + meanRoundTime() > deadline();
+    }
+
+    public boolean shouldStop() {
+        return saturated() || exhausted();
+    }
+
+    /**
+     * About how many more rounds fit before the deadline, for progress output and for deciding how many rounds
+     * to run ahead.
+     */
+    public int roundsLeft() {
+        if (roundsRun == 0) {
+            return Math.max(1, rounds);
+        }
+
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, (deadline() - elapsed()) / meanRoundTime()));
+    }
+
+    /**
+     * Puts whatever is left of the time into the bank. Only the first call has any effect.
+     */
+    public void finish() {
+        if (finished || startTimeMs < 0) {
+            return;
+        }
+        finished = true;
+
+        final double left = deadline() - elapsed();
+        System.out.printf("[INFO] Detection stopped after %d rounds (%s), %.1f seconds left.%n",
+                          roundsRun, saturated() ? "no new tests found recently" : "out of time", Math.max(0, left));
+
+        if (left > 0) {
+            deposit(left);
+        }
+    }
+
+    private int window() {
+        if (findingRounds == 0) {
+            return minWindow;
+        }
+
+        return Math.max(minWindow, (int) Math.ceil(2.0 * lastFindRound / findingRounds));
+    }
+
+    private double deadline() {
+        final double ownTime = Double.isNaN(allotment) ? rounds * meanRoundTime() : allotment;
+        return ownTime + withdrawn;
+    }
+
+    private double elapsed() {
+        return (System.currentTimeMillis() - startTimeMs) / 1000.0;
+    }
+
+    private double meanRoundTime() {
+        return roundsRun == 0 ? 0 : elapsed() / roundsRun;
+    }
+
+    /**
+     * @return How much was taken, which is less than wanted if the bank does not have that much
+     */
+    private double withdraw(final double wanted) {
+        final double balance = updateBank(b -> b - Math.min(b, wanted));
+        return Math.min(balance, wanted);
+    }
+
+    private void deposit(final double seconds) {
+        updateBank(balance -> balance + seconds);
+    }
+
+    /**
+     * Reads and updates the balance while holding both the in-process lock and a lock on the bank file,
+     * since the modules of a build (see ModuleScheduler) share the file.
+     *
+     * @return The balance before the update
+     */
+    private double updateBank(final DoubleUnaryOperator update) {
+        synchronized (BANK_LOCK) {
+            return updateBankFile(update);
+        }
+    }
+
+    private double updateBankFile(final DoubleUnaryOperator update) {
+        try {
+            Files.createDirectories(bank.toAbsolutePath().getParent());
+
+            try (final RandomAccessFile file = new RandomAccessFile(bank.toFile(), "rw");
+                 final FileChannel channel = file.getChannel();
+                 final FileLock ignored = channel.lock()) {
+                final boolean expired = System.currentTimeMillis() - bank.toFile().lastModified() > bankExpiry * 1000;
+
+                double balance = 0;
+                if (file.length() > 0 && !expired) {
+                    final byte[] bytes = new byte[(int) file.length()];
+                    file.readFully(bytes);
+                    balance = Double.parseDouble(new String(bytes, StandardCharsets.UTF_8).trim());
+                }
+
+                final byte[] updated = String.valueOf(update.applyAsDouble(balance)).getBytes(StandardCharsets.UTF_8);
+                file.setLength(0);
+                file.write(updated);
+
+                return balance;
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("[WARNING] Could not use the time bank at " + bank + ": " + e.getMessage());
+            return 0;
+        }
+    }
+}
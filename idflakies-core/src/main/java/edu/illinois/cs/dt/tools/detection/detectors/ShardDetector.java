@@ -0,0 +1,73 @@
+package edu.illinois.cs.dt.tools.detection.detectors;
+
+import edu.illinois.cs.dt.tools.detection.DetectionRound;
+import edu.illinois.cs.dt.tools.detection.DetectorUtil;
+import edu.illinois.cs.dt.tools.detection.ShardManifest;
+import edu.illinois.cs.dt.tools.detection.filters.ConfirmationFilter;
+import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runs the rounds of one shard (see ShardManifest).
+ * Only the confirmation filter is applied here; ShardMerger drops tests found in more than one round or shard.
+ */
+public class ShardDetector extends ExecutingDetector {
+    private final ShardManifest manifest;
+    private final TestRunResult origResult;
+
+    public ShardDetector(final InstrumentingSmartRunner runner, final ShardManifest manifest) {
+        this(runner, manifest, DetectorUtil.originalResults(manifest.tests(), runner));
+
+        addFilter(new ConfirmationFilter(name, manifest.tests(), runner));
+    }
+
+    // Without the confirmation filter, so tests can run a manifest against a given original order result
+    ShardDetector(final InstrumentingSmartRunner runner, final ShardManifest manifest, final TestRunResult origResult) {
+        super(runner, manifest.size(), manifest.detectorType());
+
+        this.manifest = manifest;
+        this.origResult = origResult;
+    }
+
+    @Override
+    public DetectionRound results() throws Exception {
+        return makeDts(origResult, runList(manifest.order(absoluteRound.get()), origResult));
+    }
+
+    // Every shard runs exactly the rounds in its manifest
+    @Override
+    protected boolean roundsAreTotal() {
+        return true;
+    }
+
+    /**
+     * Ignores the budget: stopping early would leave rounds of the plan unrun, and running past the manifest
+     * has no orders to run, so dt.detector.adaptive does not apply to shards.
+     */
+    @Override
+    public ExecutingDetector withBudget(final RoundBudget budget) {
+        return this;
+    }
+
+    @Override
+    protected List<String> plannedOrder(final int round) {
+        return round < manifest.size() ? manifest.order(round) : null;
+    }
+
+    @Override
+    protected TestRunResult intendedResult() {
+        return origResult;
+    }
+
+    @Override
+    public void writeTo(final Path dir) throws IOException {
+        super.writeTo(dir);
+
+        // So ShardMerger knows which rounds of the plan these are
+        manifest.writeTo(dir.resolve(ShardManifest.FILE_NAME));
+    }
+}
@@ -31,8 +31,18 @@ public class SmartShuffleDetector extends ExecutingDetector {
 
     @Override
     public DetectionRound results() throws Exception {
-        final List<String> order = shuffler.nextOrder();
+        final List<String> order = shuffler.order(absoluteRound.get());
 
-        return makeDts(originalResults, runList(order));
+        return makeDts(originalResults, runList(order, originalResults));
+    }
+
+    @Override
+    protected List<String> plannedOrder(final int round) {
+        return shuffler.order(round);
+    }
+
+    @Override
+    protected TestRunResult intendedResult() {
+        return originalResults;
     }
 }
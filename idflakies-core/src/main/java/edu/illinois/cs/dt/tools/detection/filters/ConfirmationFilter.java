@@ -1,7 +1,5 @@
 package edu.illinois.cs.dt.tools.detection.filters;
 
-import com.google.gson.Gson;
-import com.reedoei.eunomia.io.files.FileUtil;
 import edu.illinois.cs.dt.tools.detection.DetectionRound;
 import edu.illinois.cs.dt.tools.detection.DetectorPathManager;
 import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
@@ -9,6 +7,7 @@ import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
@@ -21,13 +20,16 @@ public class ConfirmationFilter implements Filter {
     private final Set<String> knownFlaky;
     private final Set<String> knownDep;
     private final String detectorType;
-    private final InstrumentingSmartRunner runner;
+    private final VerificationPlanner planner;
+    // Sampled confirmations are meant to run the tests again, so nothing is reused from earlier rounds
+    private final VerificationPlanner samplingPlanner;
 
     public ConfirmationFilter(final String detectorType,
                               final List<String> tests,
                               final InstrumentingSmartRunner runner) {
         this.detectorType = detectorType;
-        this.runner = runner;
+        this.planner = new VerificationPlanner(runner);
+        this.samplingPlanner = new VerificationPlanner(runner, false);
         this.knownFlaky = new HashSet<>();
         knownDep = new HashSet<>();
 
@@ -41,7 +43,7 @@ public class ConfirmationFilter implements Filter {
         try {
             Files.list(DetectorPathManager.detectionResults().resolve("flaky")).forEach(p -> {
                 try {
-                    final DetectionRound round = new Gson().fromJson(FileUtil.readFile(p), DetectionRound.class);
+                    final DetectionRound round = DetectionRound.fromFile(p);
 
                     for (final DependentTest dependentTest : round.filteredTests().dts()) {
                         knownFlaky.add(dependentTest.name());
@@ -51,6 +53,23 @@ public class ConfirmationFilter implements Filter {
         } catch (IOException ignored) {}
     }
 
+    @Override
+    public void prepare(final List<DependentTest> dependentTests, final int absoluteRound) {
+        final List<DependentTest> unknown = new ArrayList<>();
+        final List<DependentTest> known = new ArrayList<>();
+
+        for (final DependentTest dependentTest : dependentTests) {
+            if (knownFlaky.contains(dependentTest.name()) || knownDep.contains(dependentTest.name())) {
+                known.add(dependentTest);
+            } else {
+                unknown.add(dependentTest);
+            }
+        }
+
+        planner.prepare(unknown);
+        samplingPlanner.prepare(known);
+    }
+
     @Override
     public boolean keep(final DependentTest dependentTest, final int absoluteRound) {
         if (knownFlaky.contains(dependentTest.name())) {
@@ -95,6 +114,7 @@ public class ConfirmationFilter implements Filter {
     }
 
     private boolean verify(final String verifyType, final DependentTest dependentTest, final int absoluteRound) {
-        return dependentTest.verify(runner, DetectorPathManager.filterPath(detectorType, verifyType, absoluteRound));
+        final VerificationPlanner verifier = "confirmation-sampling".equals(verifyType) ? samplingPlanner : planner;
+        return dependentTest.verify(verifier, DetectorPathManager.filterPath(detectorType, verifyType, absoluteRound));
     }
 }
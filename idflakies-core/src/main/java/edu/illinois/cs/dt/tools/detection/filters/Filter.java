@@ -2,6 +2,14 @@ package edu.illinois.cs.dt.tools.detection.filters;
 
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 
+import java.util.List;
+
 public interface Filter {
+    /**
+     * Called with all the tests of a round before keep is called on each of them.
+     */
+    default void prepare(final List<DependentTest> dependentTests, final int absoluteRound) {
+    }
+
     boolean keep(final DependentTest dependentTest, final int absoluteRound);
 }
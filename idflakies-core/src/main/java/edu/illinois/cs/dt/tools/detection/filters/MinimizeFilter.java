@@ -0,0 +1,32 @@
+package edu.illinois.cs.dt.tools.detection.filters;
+
+import edu.illinois.cs.dt.tools.detection.PolluterMinimizer;
+import edu.illinois.cs.dt.tools.runner.data.DependentTest;
+import edu.illinois.cs.testrunner.runner.Runner;
+
+/**
+ * Keeps every test, but first finds its minimal polluters (see PolluterMinimizer) and stores them with the test.
+ * Meant to go after the filters that drop tests, so only new, confirmed dependent tests get minimized.
+ */
+public class MinimizeFilter implements Filter {
+    private final Runner runner;
+    // Made when the first test needs minimizing, so detectors that never find one never make the forks
+    private PolluterMinimizer minimizer = null;
+
+    public MinimizeFilter(final Runner runner) {
+        this.runner = runner;
+    }
+
+    @Override
+    public boolean keep(final DependentTest dependentTest, final int absoluteRound) {
+        if (!dependentTest.polluterSet().isPresent()) {
+            if (minimizer == null) {
+                minimizer = new PolluterMinimizer(runner);
+            }
+
+            dependentTest.polluterSet(minimizer.minimize(dependentTest));
+        }
+
+        return true;
+    }
+}
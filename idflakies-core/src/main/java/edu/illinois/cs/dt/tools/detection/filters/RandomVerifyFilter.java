@@ -5,24 +5,31 @@ import edu.illinois.cs.dt.tools.detection.filters.Filter;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 import edu.illinois.cs.testrunner.runner.Runner;
 
+import java.util.List;
 import java.util.Random;
 
 public class RandomVerifyFilter implements Filter {
     private final double percentage;
     private final String detectorType;
-    private final Runner runner;
+    // Sampled confirmations are meant to run the tests again, so nothing is reused from earlier rounds
+    private final VerificationPlanner planner;
 
     public RandomVerifyFilter(final double percentage, final String detectorType, final Runner runner) {
         this.percentage = percentage;
         this.detectorType = detectorType;
-        this.runner = runner;
+        this.planner = new VerificationPlanner(runner, false);
+    }
+
+    @Override
+    public void prepare(final List<DependentTest> dependentTests, final int absoluteRound) {
+        planner.prepare(dependentTests);
     }
 
     @Override
     public boolean keep(final DependentTest dependentTest, final int absoluteRound) {
         // Only confirm in percentage% of the runs
         if (new Random().nextDouble() < percentage) {
-            return dependentTest.verify(runner, DetectorPathManager.filterPath(detectorType, "confirmation-sampling", absoluteRound));
+            return dependentTest.verify(planner, DetectorPathManager.filterPath(detectorType, "confirmation-sampling", absoluteRound));
         }
 
         return true;
@@ -0,0 +1,168 @@
+package edu.illinois.cs.dt.tools.detection.filters;
+
+import edu.illinois.cs.dt.tools.utility.MD5;
+import edu.illinois.cs.dt.tools.utility.OrderHash;
+import edu.illinois.cs.dt.tools.utility.PathManager;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.testrunner.data.results.Result;
+import edu.illinois.starts.helpers.Writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Verification results that survive between runs of the plugin, stored under PathManager.cachePath().
+ *
+ * Each line of the file is: test, hash of the verified order, verification round, classpath checksum, result.
+ * The classpath checksum covers the jars (the same checksums STARTS stores for DiffMojo.hasSameJarChecksum)
+ * and the class files in the classpath directories, so any change to the code or its dependencies
+ * makes the old results stale. Stale lines are dropped the next time the cache is loaded.
+ */
+public class VerificationCache {
+    public static final Path VERIFICATION_CACHE = Paths.get("verification-cache");
+
+    private static final boolean USE_CACHE = Configuration.config().getProperty("dt.verify.cache", true);
+    private static final Map<String, VerificationCache> CACHES = new HashMap<>();
+
+    /**
+     * The cache for the given classpath, or empty if dt.verify.cache is false.
+     */
+    public static synchronized Optional<VerificationCache> forClasspath(final String classpath) {
+        if (!USE_CACHE || classpath == null) {
+            return Optional.empty();
+        }
+
+        if (!CACHES.containsKey(classpath)) {
+            CACHES.put(classpath, new VerificationCache(PathManager.path(VERIFICATION_CACHE), classpathChecksum(classpath)));
+        }
+
+        return Optional.of(CACHES.get(classpath));
+    }
+
+    private final Path path;
+    private final String checksum;
+    private final Map<String, Result> results = new HashMap<>();
+
+    public VerificationCache(final Path path, final String checksum) {
+        this.path = path;
+        this.checksum = checksum;
+
+        load();
+    }
+
+    public synchronized Optional<Result> get(final String test, final String orderHash, final int verifyRound) {
+        return Optional.ofNullable(results.get(key(test, orderHash, verifyRound)));
+    }
+
+    public synchronized void put(final String test, final String orderHash, final int verifyRound, final Result result) {
+        final String key = key(test, orderHash, verifyRound);
+
+        if (result == null || result.equals(results.get(key))) {
+            return;
+        }
+
+        results.put(key, result);
+
+        try {
+            Files.createDirectories(path.getParent());
+            Files.write(path, (line(key, result) + System.lineSeparator()).getBytes(),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ignored) {}
+    }
+
+    private String key(final String test, final String orderHash, final int verifyRound) {
+        return String.join("\t", test, orderHash, String.valueOf(verifyRound), checksum);
+    }
+
+    private String line(final String key, final Result result) {
+        return key + "\t" + result;
+    }
+
+    private void load() {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        final List<String> kept = new ArrayList<>();
+        int total = 0;
+        int otherHash = 0;
+
+        try (final Stream<String> lines = Files.lines(path)) {
+            for (final String line : lines.collect(Collectors.toList())) {
+                total++;
+
+                final String[] split = line.split("\t");
+                if (split.length != 5 || !split[3].equals(checksum)) {
+                    continue;
+                }
+
+                // Kept in the file, so switching dt.order_hash.algorithm back makes them usable again
+                if (!OrderHash.isCurrentKey(split[1])) {
+                    otherHash++;
+                    kept.add(line);
+                    continue;
+                }
+
+                try {
+                    final String key = String.join("\t", split[0], split[1], split[2], split[3]);
+                    results.put(key, Result.valueOf(split[4]));
+                    kept.add(line);
+                } catch (IllegalArgumentException ignored) {}
+            }
+
+            if (otherHash > 0) {
+                System.out.println("[INFO] Not using " + otherHash + " cached verification results whose orders " +
+                        "were hashed differently (see dt.order_hash.algorithm).");
+            }
+
+            if (kept.size() < total) {
+                Files.write(path, kept);
+            }
+        } catch (IOException ignored) {}
+    }
+
+    public static String classpathChecksum(final String classpath) {
+        final List<String> checksums = new ArrayList<>();
+
+        for (final String entry : classpath.split(File.pathSeparator)) {
+            final Path entryPath = Paths.get(entry);
+
+            if (Files.isDirectory(entryPath)) {
+                checksums.add(entry + "," + directoryChecksum(entryPath));
+            } else if (Files.isRegularFile(entryPath)) {
+                checksums.add(entry + "," + Writer.getJarToChecksumMapping(entry).getValue());
+            }
+        }
+
+        return MD5.hashOrder(checksums);
+    }
+
+    private static String directoryChecksum(final Path dir) {
+        try (final Stream<Path> files = Files.walk(dir)) {
+            final MessageDigest digest = MessageDigest.getInstance("md5");
+
+            for (final Path file : files.filter(p -> p.toString().endsWith(".class")).sorted().collect(Collectors.toList())) {
+                digest.update(dir.relativize(file).toString().getBytes());
+                digest.update(Files.readAllBytes(file));
+            }
+
+            return MD5.hex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            // Can't tell whether it changed, so never match an old checksum
+            return String.valueOf(System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package edu.illinois.cs.dt.tools.detection.filters;
+
+import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
+import edu.illinois.cs.dt.tools.runner.data.DependentTest;
+import edu.illinois.cs.dt.tools.runner.data.TestRun;
+import edu.illinois.cs.dt.tools.utility.OrderHash;
+import edu.illinois.cs.testrunner.data.results.Result;
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+import edu.illinois.cs.testrunner.runner.Runner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Runs the orders needed to verify dependent tests, sharing runs between tests whenever possible.
+ *
+ * Verifying a test means running its prefix followed by the test. When several tests of a round share
+ * the same prefix (e.g., all victims of one revealed order), their verification orders are all prefixes
+ * of each other, so the longest one is run once and every test reads its result from that run.
+ * Results are also kept for the rest of the session, keyed by the hash of the order that was verified,
+ * and in the VerificationCache for later sessions on the same code.
+ */
+public class VerificationPlanner {
+    private final Runner runner;
+    private final boolean reuseAcrossRounds;
+    private final VerificationCache cache;
+
+    private final List<Request> pending = new ArrayList<>();
+    // Key: order hash # test # verification round
+    private final Map<String, Verification> roundResults = new HashMap<>();
+    private final Map<String, Verification> sessionResults = new HashMap<>();
+    private final Map<String, TestRunResult> roundRuns = new HashMap<>();
+    // Runs made up from VerificationCache hits, which are not in the test-runs folder
+    private final Map<String, TestRunResult> cachedRuns = new HashMap<>();
+
+    public VerificationPlanner(final Runner runner) {
+        this(runner, true);
+    }
+
+    /**
+     * @param reuseAcrossRounds If false, results are only shared within a round, so every round really runs its tests again.
+     *                          This also means not using the VerificationCache.
+     */
+    public VerificationPlanner(final Runner runner, final boolean reuseAcrossRounds) {
+        this.runner = runner;
+        this.reuseAcrossRounds = reuseAcrossRounds;
+        this.cache = reuseAcrossRounds ? VerificationCache.forClasspath(runner.classpath()).orElse(null) : null;
+    }
+
+    public static List<String> verificationOrder(final List<String> prefix, final String dt) {
+        final List<String> order = new ArrayList<>(prefix);
+        if (!order.contains(dt)) {
+            order.add(dt);
+        }
+        return order;
+    }
+
+    /**
+     * Tells the planner which tests are about to be verified, so it can pick runs that cover as many of them as possible.
+     */
+    public void prepare(final List<DependentTest> dts) {
+        pending.clear();
+        roundResults.clear();
+        roundRuns.clear();
+
+        for (final DependentTest dt : dts) {
+            for (final TestRun testRun : new TestRun[] {dt.intended(), dt.revealed()}) {
+                pending.add(new Request(verificationOrder(testRun.order(), dt.name()), dt.name()));
+            }
+        }
+    }
+
+    public Verification verify(final List<String> order, final String dt, final int verifyRound) {
+        final String orderHash = OrderHash.key(order);
+        final String key = key(orderHash, dt, verifyRound);
+
+        if (roundResults.containsKey(key)) {
+            return roundResults.get(key);
+        }
+
+        if (reuseAcrossRounds && sessionResults.containsKey(key)) {
+            return sessionResults.get(key);
+        }
+
+        if (cache != null) {
+            final Optional<Result> cached = cache.get(dt, orderHash, verifyRound);
+
+            if (cached.isPresent()) {
+                // Nothing was run, but the verification output still gets a run with just the cached result
+                final TestRunResult cachedRun = new TestRunResult("cached-" + UUID.randomUUID(), order,
+                        Collections.singletonMap(dt, new TestResult(dt, cached.get(), 0, new StackTraceElement[0])));
+                cachedRuns.put(cachedRun.id(), cachedRun);
+
+                final Verification verification = new Verification(cached.get(), cachedRun.id());
+                sessionResults.put(key, verification);
+                return verification;
+            }
+        }
+
+        // Run the longest pending order that starts with this one, so the run also answers the shorter ones
+        List<String> runOrder = order;
+        for (final Request request : pending) {
+            if (request.order.size() > runOrder.size() && isPrefix(runOrder, request.order)) {
+                runOrder = request.order;
+            }
+        }
+
+        final TestRunResult result;
+        try {
+            result = runner.runList(runOrder).get();
+        } catch (Exception e) {
+            return new Verification(null, null);
+        }
+
+        roundRuns.put(result.id(), result);
+
+        final List<Request> answered = new ArrayList<>();
+        answered.add(new Request(order, dt));
+        for (final Request request : pending) {
+            if (isPrefix(request.order, runOrder)) {
+                answered.add(request);
+            }
+        }
+
+        for (final Request request : answered) {
+            final TestResult testResult = result.results().get(request.dt);
+
+            if (testResult != null) {
+                final Verification verification = new Verification(testResult.result(), result.id());
+                final String requestHash = OrderHash.key(request.order);
+                final String requestKey = key(requestHash, request.dt, verifyRound);
+                roundResults.put(requestKey, verification);
+                sessionResults.put(requestKey, verification);
+
+                if (cache != null) {
+                    cache.put(request.dt, requestHash, verifyRound, testResult.result());
+                }
+            }
+        }
+
+        return roundResults.getOrDefault(key, new Verification(null, result.id()));
+    }
+
+    /**
+     * The full result of the run a verification came from, if it is still available.
+     */
+    public TestRunResult testRunResult(final Verification verification) {
+        if (verification.testRunId() == null) {
+            return null;
+        }
+
+        if (roundRuns.containsKey(verification.testRunId())) {
+            return roundRuns.get(verification.testRunId());
+        }
+
+        if (cachedRuns.containsKey(verification.testRunId())) {
+            return cachedRuns.get(verification.testRunId());
+        }
+
+        return RunnerPathManager.resultFor(verification.testRunId()).findFirst().orElse(null);
+    }
+
+    private static String key(final String orderHash, final String dt, final int verifyRound) {
+        return orderHash + "#" + dt + "#" + verifyRound;
+    }
+
+    private static boolean isPrefix(final List<String> prefix, final List<String> order) {
+        return prefix.size() <= order.size() && order.subList(0, prefix.size()).equals(prefix);
+    }
+
+    private static class Request {
+        private final List<String> order;
+        private final String dt;
+
+        private Request(final List<String> order, final String dt) {
+            this.order = order;
+            this.dt = dt;
+        }
+    }
+
+    public static class Verification {
+        private final Result result;
+        private final String testRunId;
+
+        public Verification(final Result result, final String testRunId) {
+            this.result = result;
+            this.testRunId = testRunId;
+        }
+
+        public Result result() {
+            return result;
+        }
+
+        public String testRunId() {
+            return testRunId;
+        }
+    }
+}
@@ -5,20 +5,29 @@ import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 import edu.illinois.cs.testrunner.configuration.Configuration;
 import edu.illinois.cs.testrunner.runner.Runner;
 
+import java.util.List;
+
 public class VerifyFilter implements Filter {
     private static final boolean VERIFY_DTS = Configuration.config().getProperty("dt.verify", true);
     private final String detectorType;
-    private final Runner runner;
+    private final VerificationPlanner planner;
 
     public VerifyFilter(final String detectorType, final Runner runner) {
         this.detectorType = detectorType;
-        this.runner = runner;
+        this.planner = new VerificationPlanner(runner);
+    }
+
+    @Override
+    public void prepare(final List<DependentTest> dependentTests, final int absoluteRound) {
+        if (VERIFY_DTS) {
+            planner.prepare(dependentTests);
+        }
     }
 
     @Override
     public boolean keep(final DependentTest dependentTest, final int absoluteRound) {
         if (VERIFY_DTS) {
-            return dependentTest.verify(runner, DetectorPathManager.filterPath(detectorType, "verify", absoluteRound));
+            return dependentTest.verify(planner, DetectorPathManager.filterPath(detectorType, "verify", absoluteRound));
         } else {
             return true;
         }
@@ -1,5 +1,6 @@
 package edu.illinois.cs.dt.tools.runner;
 
+import edu.illinois.cs.dt.tools.runner.pool.WorkerPool;
 import edu.illinois.cs.testrunner.data.framework.TestFramework;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 import edu.illinois.cs.testrunner.runner.Runner;
@@ -8,15 +9,22 @@ import edu.illinois.cs.testrunner.runner.TestInfoStore;
 import edu.illinois.cs.testrunner.util.ExecutionInfo;
 import edu.illinois.cs.testrunner.util.ExecutionInfoBuilder;
 import edu.illinois.cs.testrunner.util.TempFiles;
+import scala.Option;
+import scala.collection.JavaConverters;
 import scala.collection.immutable.Stream;
 import scala.util.Failure;
+import scala.util.Success;
 import scala.util.Try;
 
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class InstrumentingSmartRunner extends SmartRunner {
     private Path outputPath;
+    private WorkerPool pool = null;
+    private Path testRuns = null;
 
     public static InstrumentingSmartRunner fromRunner(final Runner runner) {
         if (runner instanceof SmartRunner) {
@@ -28,12 +36,52 @@ public class InstrumentingSmartRunner extends SmartRunner {
         }
     }
 
+    /**
+     * Creates a runner for the same tests that shares no state with the given runner,
+     * so several test runs can be in flight at once (one per fork). Each fork writes its output
+     * next to the given runner's, suffixed with the fork's name.
+     */
+    public static InstrumentingSmartRunner fork(final Runner runner, final String name) {
+        final Path forkOutputPath = runner.outputPath() == null ? null :
+                runner.outputPath().resolveSibling(runner.outputPath().getFileName() + "-" + name);
+
+        return new InstrumentingSmartRunner(runner.framework(), new TestInfoStore(),
+                                            runner.classpath(), runner.environment(), forkOutputPath);
+    }
+
     private InstrumentingSmartRunner(final TestFramework testFramework, final TestInfoStore infoStore,
                                      final String cp, final Map<String, String> env, final Path outputPath) {
         super(testFramework, infoStore, cp, env, outputPath);
 
     }
 
+    /**
+     * Stores the results of this runner's runs under the given directory instead of test-runs.
+     */
+    public InstrumentingSmartRunner storeRunsIn(final Path testRuns) {
+        this.testRuns = testRuns;
+
+        return this;
+    }
+
+    /**
+     * Runs the tests like runList, but may stop as soon as divergenceLimit tests have a result different from
+     * the one in intended. Tests after that point are then missing from the result, and from its test order.
+     * Only pooled runs (dt.runner.pool) can stop early; otherwise this is the same as runList.
+     */
+    public Try<TestRunResult> runListComparing(final List<String> tests, final TestRunResult intended,
+                                               final int divergenceLimit) {
+        if (divergenceLimit <= 0 || !usePool()) {
+            return runList(tests);
+        }
+
+        final Map<String, String> expected = new HashMap<>();
+        intended.results().forEach((name, result) -> expected.put(name, result.result().name()));
+
+        // The expectation goes along with this run only, so concurrent runs on this runner are not cut off
+        return runInstrumented(classpath(), JavaConverters.asScalaBuffer(tests).toStream(), expected, divergenceLimit);
+    }
+
     @Override
     public ExecutionInfo execution(final Stream<String> testOrder, final ExecutionInfoBuilder executionInfoBuilder) {
         final ExecutionInfoBuilder builder;
@@ -48,15 +96,26 @@ public class InstrumentingSmartRunner extends SmartRunner {
 
     @Override
     public Try<TestRunResult> runWithCp(final String cp, final Stream<String> testOrder) {
+        return runInstrumented(cp, testOrder, null, 0);
+    }
+
+    private Try<TestRunResult> runInstrumented(final String cp, final Stream<String> testOrder,
+                                               final Map<String, String> expected, final int divergenceLimit) {
         // Save stdout,stderr, and run result to a file
         final Try<Try<TestRunResult>> result = TempFiles.withTempFile(outputPath -> {
             try {
                 writeTo(outputPath);
 
-                final Try<TestRunResult> testRunResultTry = super.runWithCp(cp, testOrder);
+                final Try<TestRunResult> testRunResultTry;
+                if (usePool()) {
+                    testRunResultTry = runPooled(cp, testOrder, outputPath, expected, divergenceLimit);
+                } else {
+                    testRunResultTry = super.runWithCp(cp, testOrder);
+                }
 
                 if (testRunResultTry.isSuccess()) {
-                    RunnerPathManager.outputResult(outputPath, testRunResultTry.get());
+                    RunnerPathManager.outputResult(testRuns == null ? RunnerPathManager.testRuns() : testRuns,
+                                                   outputPath, testRunResultTry.get());
                 }
 
                 return testRunResultTry;
@@ -68,6 +127,33 @@ public class InstrumentingSmartRunner extends SmartRunner {
         return result.get();
     }
 
+    // Pooled workers only know how to run JUnit 4 tests; anything else still gets a fresh JVM per run
+    private boolean usePool() {
+        return WorkerPool.enabled() && "JUnit".equals(framework().toString());
+    }
+
+    private Try<TestRunResult> runPooled(final String cp, final Stream<String> testOrder, final Path outputPath,
+                                         final Map<String, String> expected, final int divergenceLimit) {
+        synchronized (this) {
+            if (pool == null) {
+                pool = new WorkerPool(environment());
+            }
+        }
+
+        final List<String> order = JavaConverters.seqAsJavaList(testOrder);
+
+        // Keep the TestInfoStore up to date, like SmartRunner.runWithCp does for forked runs
+        try {
+            final TestRunResult result = pool.run(cp, order, outputPath, expected, divergenceLimit);
+            // A run that stopped early only tells us about the tests that actually ran
+            info().update(result.testOrder(), Option.apply(result));
+            return new Success<>(result);
+        } catch (Exception e) {
+            info().update(order, Option.empty());
+            return new Failure<>(e);
+        }
+    }
+
     private void writeTo(final Path outputPath) {
         this.outputPath = outputPath;
     }
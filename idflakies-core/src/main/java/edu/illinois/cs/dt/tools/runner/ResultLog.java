@@ -0,0 +1,378 @@
+package edu.illinois.cs.dt.tools.runner;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import edu.illinois.cs.dt.tools.utility.MD5;
+import edu.illinois.cs.dt.tools.utility.OrderHash;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.testrunner.data.results.Result;
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Append-only store for test run results, used instead of one results/ and one output/ file per run
+ * when dt.runner.result_store is "log".
+ *
+ * Records are JSON lines appended to test-runs/log/segment-N; a new segment is started once the current one
+ * reaches dt.runner.result_store.segment_size bytes. The index file maps each record to its segment, offset and length,
+ * so a run can be read back without scanning the segments. Test orders and stack traces are stored once per
+ * distinct content (keyed by their hash), and runs refer to them by hash.
+ *
+ * Several ResultLogs (e.g., in other processes) may append to the same directory: records are appended while
+ * holding a lock on the index file, and each log reads the index lines the others added before it reads or writes,
+ * and reads the whole index again if the index file was replaced.
+ */
+public class ResultLog {
+    public static final String LOG_DIR = "log";
+    public static final String INDEX = "index";
+
+    private static final String RUN = "run:";
+    private static final String OUTPUT = "output:";
+    private static final String ORDER = "order:";
+    private static final String TRACE = "trace:";
+
+    private static final Map<Path, ResultLog> LOGS = new HashMap<>();
+    // FileChannel.lock only keeps other processes out; logs in the same JVM would get an
+    // OverlappingFileLockException instead of waiting, so they take turns on this first
+    private static final Object WRITE_LOCK = new Object();
+
+    public static boolean enabled() {
+        return "log".equals(Configuration.config().getProperty("dt.runner.result_store", "files"));
+    }
+
+    /**
+     * @param testRuns The test-runs directory
+     */
+    public static boolean exists(final Path testRuns) {
+        return Files.exists(testRuns.resolve(LOG_DIR).resolve(INDEX));
+    }
+
+    /**
+     * @param testRuns The test-runs directory
+     */
+    public static synchronized ResultLog at(final Path testRuns) {
+        final Path dir = testRuns.resolve(LOG_DIR).toAbsolutePath().normalize();
+        return LOGS.computeIfAbsent(dir, ResultLog::new);
+    }
+
+    private final Path dir;
+    private final long segmentSize = Configuration.config().getProperty("dt.runner.result_store.segment_size", 64 * 1024 * 1024);
+    private final Gson gson = new Gson();
+
+    private final Map<String, Location> index = new LinkedHashMap<>();
+    private final List<String> runIds = new ArrayList<>();
+    private long indexRead = 0;
+    // The last index line read (ending at indexRead), to notice when the index file was replaced
+    private byte[] lastIndexLine = new byte[0];
+    private int currentSegment = 0;
+
+    private final Map<String, List<String>> orderCache = new HashMap<>();
+
+    // Not private so tests can open the same directory twice, like two processes would
+    ResultLog(final Path dir) {
+        this.dir = dir;
+    }
+
+    public synchronized void append(final TestRunResult testRunResult, final String output) throws IOException {
+        Files.createDirectories(dir);
+        refreshIndex();
+
+        final String orderHash = OrderHash.key(testRunResult.testOrder());
+        if (!index.containsKey(ORDER + orderHash)) {
+            final JsonObject order = new JsonObject();
+            order.add("order", gson.toJsonTree(testRunResult.testOrder()));
+            write(ORDER + orderHash, order);
+        }
+
+        final JsonArray results = new JsonArray();
+        for (final TestResult testResult : testRunResult.results().values()) {
+            final JsonArray result = new JsonArray();
+            result.add(testResult.name());
+            result.add(String.valueOf(testResult.result()));
+            result.add(testResult.time());
+            result.add(traceHash(testResult.stackTrace()));
+            results.add(result);
+        }
+
+        final JsonObject run = new JsonObject();
+        run.addProperty("id", testRunResult.id());
+        run.addProperty("order", orderHash);
+        run.add("results", results);
+
+        if (output != null) {
+            final JsonObject outputRecord = new JsonObject();
+            outputRecord.addProperty("output", output);
+            write(OUTPUT + testRunResult.id(), outputRecord);
+        }
+
+        write(RUN + testRunResult.id(), run);
+    }
+
+    /**
+     * The ids of all runs in the log, in the order they were added.
+     */
+    public synchronized List<String> ids() {
+        refreshIndex();
+        return new ArrayList<>(runIds);
+    }
+
+    public Stream<TestRunResult> results() {
+        return results(true);
+    }
+
+    public Stream<TestRunResult> results(final boolean stackTraces) {
+        return ids().stream().flatMap(id -> read(id, stackTraces).map(Stream::of).orElse(Stream.empty()));
+    }
+
+    public Optional<TestRunResult> read(final String id) {
+        return read(id, true);
+    }
+
+    /**
+     * @param stackTraces Whether to read the stack traces; if not, the results get empty stack traces
+     */
+    public synchronized Optional<TestRunResult> read(final String id, final boolean stackTraces) {
+        final Optional<JsonObject> run = record(RUN + id);
+
+        if (!run.isPresent()) {
+            return Optional.empty();
+        }
+
+        final List<String> order = order(run.get().get("order").getAsString());
+        final Map<String, TestResult> results = new LinkedHashMap<>();
+        final Map<String, StackTraceElement[]> traces = new HashMap<>();
+
+        for (final JsonElement element : run.get().getAsJsonArray("results")) {
+            final JsonArray result = element.getAsJsonArray();
+            final String name = result.get(0).getAsString();
+            final String traceHash = result.get(3).getAsString();
+
+            final StackTraceElement[] trace = stackTraces ? traces.computeIfAbsent(traceHash, this::trace) : trace("");
+            results.put(name, new TestResult(name, Result.valueOf(result.get(1).getAsString()),
+                                             result.get(2).getAsDouble(), trace));
+        }
+
+        return Optional.of(new TestRunResult(id, order, results));
+    }
+
+    public synchronized Optional<String> output(final String id) {
+        return record(OUTPUT + id).map(o -> o.get("output").getAsString());
+    }
+
+    private String traceHash(final StackTraceElement[] stackTrace) throws IOException {
+        if (stackTrace == null || stackTrace.length == 0) {
+            return "";
+        }
+
+        final String json = gson.toJson(stackTrace);
+        final String hash = MD5.md5(json);
+
+        if (!index.containsKey(TRACE + hash)) {
+            final JsonObject trace = new JsonObject();
+            trace.add("trace", new JsonParser().parse(json));
+            write(TRACE + hash, trace);
+        }
+
+        return hash;
+    }
+
+    private StackTraceElement[] trace(final String hash) {
+        if (hash.isEmpty()) {
+            return new StackTraceElement[0];
+        }
+
+        return record(TRACE + hash)
+                .map(o -> gson.fromJson(o.get("trace"), StackTraceElement[].class))
+                .orElse(new StackTraceElement[0]);
+    }
+
+    private List<String> order(final String hash) {
+        return orderCache.computeIfAbsent(hash, h -> {
+            final List<String> order = new ArrayList<>();
+            record(ORDER + h).ifPresent(o -> o.getAsJsonArray("order").forEach(t -> order.add(t.getAsString())));
+            return order;
+        });
+    }
+
+    private Optional<JsonObject> record(final String key) {
+        refreshIndex();
+
+        final Location location = index.get(key);
+        if (location == null) {
+            return Optional.empty();
+        }
+
+        try (final RandomAccessFile file = new RandomAccessFile(segmentPath(location.segment).toFile(), "r")) {
+            final byte[] bytes = new byte[location.length];
+            file.seek(location.offset);
+            file.readFully(bytes);
+
+            return Optional.of(new JsonParser().parse(new String(bytes, StandardCharsets.UTF_8)).getAsJsonObject());
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            // E.g., an index line pointing at a record that was not written completely
+            return Optional.empty();
+        }
+    }
+
+    private void write(final String key, final JsonObject record) throws IOException {
+        final byte[] bytes = (record.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+
+        // Holding the index lock, nobody else appends to a segment or the index until our index line is written
+        synchronized (WRITE_LOCK) {
+            try (final FileChannel indexChannel = FileChannel.open(dir.resolve(INDEX), StandardOpenOption.CREATE,
+                                                                   StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                 final FileLock ignored = indexChannel.lock()) {
+                // Another log may have started a new segment since we last looked
+                refreshIndex();
+
+                int segment = currentSegment;
+                Path segmentPath = segmentPath(segment);
+                if (Files.exists(segmentPath) && Files.size(segmentPath) > 0 && Files.size(segmentPath) + bytes.length > segmentSize) {
+                    segment++;
+                    segmentPath = segmentPath(segment);
+                }
+
+                final long offset;
+                try (final FileChannel segmentChannel = FileChannel.open(segmentPath, StandardOpenOption.CREATE,
+                                                                         StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    // Opened for appending, so the position is the end of the file
+                    offset = segmentChannel.position();
+                    writeFully(segmentChannel, bytes);
+                }
+
+                // The index is only written once the record is complete, so it never points at a partial record
+                final Location location = new Location(segment, offset, bytes.length - 1);
+                writeFully(indexChannel, (key + "\t" + location + "\n").getBytes(StandardCharsets.UTF_8));
+                add(key, location);
+            }
+        }
+
+        // Also picks up lines other logs appended in the meantime, which skipping to the end of the file would lose
+        refreshIndex();
+    }
+
+    private static void writeFully(final FileChannel channel, final byte[] bytes) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private Path segmentPath(final int segment) {
+        return dir.resolve("segment-" + segment);
+    }
+
+    private void add(final String key, final Location location) {
+        if (key.startsWith(RUN) && !index.containsKey(key)) {
+            runIds.add(key.substring(RUN.length()));
+        }
+        index.put(key, location);
+        currentSegment = Math.max(currentSegment, location.segment);
+    }
+
+    private void reset() {
+        index.clear();
+        runIds.clear();
+        orderCache.clear();
+        indexRead = 0;
+        lastIndexLine = new byte[0];
+        currentSegment = 0;
+    }
+
+    // Reads any index lines added since the last time (e.g., by another ResultLog on the same directory)
+    private void refreshIndex() {
+        final Path indexPath = dir.resolve(INDEX);
+
+        try {
+            if (!Files.exists(indexPath)) {
+                if (indexRead > 0) {
+                    reset();
+                }
+                return;
+            }
+
+            try (final RandomAccessFile file = new RandomAccessFile(indexPath.toFile(), "r")) {
+                if (indexRead > 0 && !sameLastIndexLine(file)) {
+                    reset();
+                }
+
+                if (file.length() <= indexRead) {
+                    return;
+                }
+
+                file.seek(indexRead);
+                final byte[] bytes = new byte[(int) (file.length() - indexRead)];
+                file.readFully(bytes);
+
+                final String text = new String(bytes, StandardCharsets.UTF_8);
+                // Only complete lines; a partial last line is read next time
+                final int end = text.lastIndexOf('\n');
+                if (end < 0) {
+                    return;
+                }
+
+                for (final String line : text.substring(0, end).split("\n")) {
+                    final String[] split = line.split("\t");
+                    if (split.length == 4) {
+                        add(split[0], new Location(Integer.parseInt(split[1]), Long.parseLong(split[2]), Integer.parseInt(split[3])));
+                    }
+                }
+
+                final String lines = text.substring(0, end + 1);
+                indexRead += lines.getBytes(StandardCharsets.UTF_8).length;
+                lastIndexLine = lines.substring(lines.lastIndexOf('\n', lines.length() - 2) + 1).getBytes(StandardCharsets.UTF_8);
+            }
+        } catch (IOException | NumberFormatException ignored) {}
+    }
+
+    // False if the index is shorter than what was read, or has something else where the last line read was
+    private boolean sameLastIndexLine(final RandomAccessFile file) throws IOException {
+        if (file.length() < indexRead) {
+            return false;
+        }
+
+        final byte[] bytes = new byte[lastIndexLine.length];
+        file.seek(indexRead - lastIndexLine.length);
+        file.readFully(bytes);
+        return Arrays.equals(bytes, lastIndexLine);
+    }
+
+    private static class Location {
+        private final int segment;
+        private final long offset;
+        private final int length;
+
+        private Location(final int segment, final long offset, final int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public String toString() {
+            return segment + "\t" + offset + "\t" + length;
+        }
+    }
+}
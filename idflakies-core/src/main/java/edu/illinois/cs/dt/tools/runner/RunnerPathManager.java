@@ -1,8 +1,7 @@
 package edu.illinois.cs.dt.tools.runner;
 
-import com.google.gson.Gson;
-import com.reedoei.eunomia.io.files.FileUtil;
 import edu.illinois.cs.dt.tools.utility.PathManager;
+import edu.illinois.cs.dt.tools.utility.TestRunResultReader;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 import org.apache.commons.io.FileUtils;
 
@@ -10,15 +9,24 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 public class RunnerPathManager extends PathManager {
     public static final Path TEST_RUNS = Paths.get("test-runs");
+    public static final Path MINIMIZE_RUNS = Paths.get("minimize-runs");
 
     public static Path testRuns() {
         return path(TEST_RUNS);
     }
 
+    /**
+     * Where the runs made while minimizing polluters go, laid out like test-runs.
+     */
+    public static Path minimizeRuns() {
+        return path(MINIMIZE_RUNS);
+    }
+
     public static Path outputPath() {
         return testRuns().resolve("output");
     }
@@ -44,8 +52,19 @@ public class RunnerPathManager extends PathManager {
     }
 
     public static void outputResult(final Path tempOutput, final TestRunResult testRunResult) throws Exception {
-        final Path outputPath = outputPath(testRunResult);
-        final Path resultPath = resultsPath(testRunResult);
+        outputResult(testRuns(), tempOutput, testRunResult);
+    }
+
+    public static void outputResult(final Path testRuns, final Path tempOutput, final TestRunResult testRunResult) throws Exception {
+        if (ResultLog.enabled()) {
+            final String output = Files.exists(tempOutput) ? new String(Files.readAllBytes(tempOutput)) : null;
+            ResultLog.at(testRuns).append(testRunResult, output);
+            Files.deleteIfExists(tempOutput);
+            return;
+        }
+
+        final Path outputPath = testRuns.resolve("output").resolve(testRunResult.id());
+        final Path resultPath = testRuns.resolve("results").resolve(testRunResult.id());
 
         Files.createDirectories(outputPath.getParent());
         Files.move(tempOutput, outputPath);
@@ -59,8 +78,16 @@ public class RunnerPathManager extends PathManager {
     }
 
     public static Stream<TestRunResult> resultFor(final String trKey) {
+        if (ResultLog.exists(testRuns())) {
+            final Optional<TestRunResult> result = ResultLog.at(testRuns()).read(trKey);
+
+            if (result.isPresent()) {
+                return Stream.of(result.get());
+            }
+        }
+
         try {
-            return Stream.of(new Gson().fromJson(FileUtil.readFile(resultsPath(trKey)), TestRunResult.class));
+            return Stream.of(TestRunResultReader.read(resultsPath(trKey)));
         } catch (IOException ignored) {}
 
         return Stream.empty();
@@ -0,0 +1,210 @@
+package edu.illinois.cs.dt.tools.runner.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import edu.illinois.cs.dt.tools.utility.LongIntHashMap;
+import edu.illinois.cs.dt.tools.utility.OrderHash;
+import edu.illinois.cs.testrunner.data.results.Result;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact JSON format for lists of dependent tests (DependentTestList, DetectionRound).
+ *
+ * The default Gson format repeats the full intended and revealed prefix of every dependent test.
+ * Here, every test name is stored once in a dictionary ("tests"), every distinct order is stored once
+ * as indices into the dictionary ("orders"), and each prefix is just an order index and a length.
+ * Dependent test names are kept as plain strings, so the files can still be grepped for "name".
+ *
+ * Files without the "format" marker are in the old format and should be read with Gson as before. Files with a
+ * "format" marker other than FORMAT are from a newer version and are rejected instead of being misread. Readers
+ * of the old format fail on compact files, since prefixes are objects there instead of arrays of names.
+ */
+public class CompactFormat {
+    public static final String FORMAT = "compact-v1";
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * @throws IllegalArgumentException If the json is in some other version of the compact format
+     */
+    public static boolean isCompact(final JsonObject json) {
+        if (!json.has("format")) {
+            return false;
+        }
+
+        final String format = json.get("format").getAsString();
+        if (!FORMAT.equals(format)) {
+            throw new IllegalArgumentException("Unsupported format " + format + ", expected " + FORMAT);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The parsed object, or null if the json is empty (like Gson.fromJson would return)
+     */
+    public static JsonObject parse(final String json) {
+        final JsonElement element = new JsonParser().parse(json);
+        return element.isJsonObject() ? element.getAsJsonObject() : null;
+    }
+
+    /**
+     * Collects the dictionary and orders while dependent tests are encoded; call writeTo at the end.
+     */
+    public static class Encoder {
+        private final List<String> tests = new ArrayList<>();
+        private final Map<String, Integer> testIds = new HashMap<>();
+        private final List<List<String>> orders = new ArrayList<>();
+        private final Map<List<String>, Integer> orderIds = new IdentityHashMap<>();
+        // Key: OrderHash of every prefix of every order. Value: the first order with that prefix
+        private final LongIntHashMap prefixOrders = new LongIntHashMap();
+
+        public JsonArray encode(final List<DependentTest> dts) {
+            // Longest prefixes first, so the shorter ones can point into them
+            final List<List<String>> prefixes = new ArrayList<>();
+            for (final DependentTest dt : dts) {
+                prefixes.add(dt.intended().order());
+                prefixes.add(dt.revealed().order());
+            }
+            prefixes.sort(Comparator.<List<String>>comparingInt(List::size).reversed());
+            prefixes.forEach(this::orderFor);
+
+            final JsonArray result = new JsonArray();
+            for (final DependentTest dt : dts) {
+                result.add(encode(dt));
+            }
+            return result;
+        }
+
+        public JsonObject writeTo(final JsonObject json) {
+            json.addProperty("format", FORMAT);
+
+            // Orders first: the dictionary is filled while they are written
+            final JsonArray ordersJson = new JsonArray();
+            for (final List<String> order : orders) {
+                final JsonArray orderJson = new JsonArray();
+                order.forEach(t -> orderJson.add(testId(t)));
+                ordersJson.add(orderJson);
+            }
+
+            final JsonArray testsJson = new JsonArray();
+            tests.forEach(testsJson::add);
+            json.add("tests", testsJson);
+            json.add("orders", ordersJson);
+
+            return json;
+        }
+
+        private JsonObject encode(final DependentTest dt) {
+            final JsonObject json = new JsonObject();
+            json.addProperty("name", dt.name());
+            json.add("intended", encode(dt.intended()));
+            json.add("revealed", encode(dt.revealed()));
+            // Polluters and cleaners are short, so they are kept as plain names
+            dt.polluterSet().ifPresent(polluterSet -> json.add("polluterSet", GSON.toJsonTree(polluterSet)));
+            return json;
+        }
+
+        private JsonObject encode(final TestRun testRun) {
+            final JsonObject json = new JsonObject();
+            json.addProperty("order", orderFor(testRun.order()));
+            json.addProperty("length", testRun.order().size());
+            json.addProperty("result", String.valueOf(testRun.result()));
+            json.addProperty("testRunId", testRun.testRunId());
+            return json;
+        }
+
+        private int orderFor(final List<String> prefix) {
+            final Integer known = orderIds.get(prefix);
+            if (known != null) {
+                return known;
+            }
+
+            // The hash only finds the order, which is then compared, so a collision just adds another order
+            final int candidate = prefixOrders.get(OrderHash.hash(prefix), -1);
+            if (candidate >= 0) {
+                final List<String> order = orders.get(candidate);
+
+                if (order.size() >= prefix.size() && order.subList(0, prefix.size()).equals(prefix)) {
+                    orderIds.put(prefix, candidate);
+                    return candidate;
+                }
+            }
+
+            final int id = orders.size();
+            orders.add(prefix);
+            orderIds.put(prefix, id);
+
+            final long[] hashes = OrderHash.prefixes(prefix);
+            for (final long hash : hashes) {
+                if (!prefixOrders.containsKey(hash)) {
+                    prefixOrders.put(hash, id);
+                }
+            }
+            return id;
+        }
+
+        private int testId(final String test) {
+            return testIds.computeIfAbsent(test, t -> {
+                tests.add(t);
+                return tests.size() - 1;
+            });
+        }
+    }
+
+    public static class Decoder {
+        private final List<List<String>> orders = new ArrayList<>();
+
+        public Decoder(final JsonObject json) {
+            final List<String> tests = new ArrayList<>();
+            for (final JsonElement test : json.getAsJsonArray("tests")) {
+                tests.add(test.getAsString());
+            }
+
+            for (final JsonElement order : json.getAsJsonArray("orders")) {
+                final ImmutableList.Builder<String> builder = ImmutableList.builder();
+                for (final JsonElement id : order.getAsJsonArray()) {
+                    builder.add(tests.get(id.getAsInt()));
+                }
+                orders.add(builder.build());
+            }
+        }
+
+        public List<DependentTest> decode(final JsonArray dts) {
+            final List<DependentTest> result = new ArrayList<>();
+
+            for (final JsonElement element : dts) {
+                final JsonObject dt = element.getAsJsonObject();
+                final DependentTest dependentTest = new DependentTest(dt.get("name").getAsString(),
+                                                                      decode(dt.getAsJsonObject("intended")),
+                                                                      decode(dt.getAsJsonObject("revealed")));
+                if (dt.has("polluterSet")) {
+                    dependentTest.polluterSet(GSON.fromJson(dt.get("polluterSet"), PolluterSet.class));
+                }
+                result.add(dependentTest);
+            }
+
+            return result;
+        }
+
+        private TestRun decode(final JsonObject testRun) {
+            // Prefixes are views into the shared order, like the ones DetectorUtil.flakyTests creates
+            final List<String> order = orders.get(testRun.get("order").getAsInt())
+                    .subList(0, testRun.get("length").getAsInt());
+            final JsonElement testRunId = testRun.get("testRunId");
+
+            return new TestRun(order, Result.valueOf(testRun.get("result").getAsString()),
+                               testRunId == null || testRunId.isJsonNull() ? null : testRunId.getAsString());
+        }
+    }
+}
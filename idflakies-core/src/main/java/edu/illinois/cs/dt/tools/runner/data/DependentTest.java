@@ -1,10 +1,12 @@
 package edu.illinois.cs.dt.tools.runner.data;
 
 import com.google.gson.Gson;
+import edu.illinois.cs.dt.tools.detection.filters.VerificationPlanner;
 import edu.illinois.cs.testrunner.configuration.Configuration;
 import edu.illinois.cs.testrunner.runner.Runner;
 
 import java.nio.file.Path;
+import java.util.Optional;
 
 public class DependentTest {
     private static final boolean VERIFY_DTS = Configuration.config().getProperty("dt.verify", true);
@@ -14,6 +16,9 @@ public class DependentTest {
     private final TestRun intended;
     private final TestRun revealed;
 
+    // Only set when dt.minimize is on (see PolluterMinimizer)
+    private PolluterSet polluterSet = null;
+
     public DependentTest(final String name, final TestRun intended, final TestRun revealed) {
         this.name = name;
         this.intended = intended;
@@ -32,12 +37,26 @@ public class DependentTest {
         return revealed;
     }
 
+    public Optional<PolluterSet> polluterSet() {
+        return Optional.ofNullable(polluterSet);
+    }
+
+    public DependentTest polluterSet(final PolluterSet polluterSet) {
+        this.polluterSet = polluterSet;
+
+        return this;
+    }
+
     @Override
     public String toString() {
         return new Gson().toJson(this);
     }
 
     public boolean verify(final Runner runner, final Path path) {
-        return intended.verify(name, runner, path) && revealed.verify(name, runner, path);
+        return verify(new VerificationPlanner(runner), path);
+    }
+
+    public boolean verify(final VerificationPlanner planner, final Path path) {
+        return intended.verify(name, planner, path) && revealed.verify(name, planner, path);
     }
 }
@@ -2,6 +2,7 @@ package edu.illinois.cs.dt.tools.runner.data;
 
 import com.google.common.base.Preconditions;
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import com.reedoei.eunomia.collections.ListUtil;
 import com.reedoei.eunomia.io.files.FileUtil;
 import edu.illinois.cs.testrunner.data.results.Result;
@@ -23,7 +24,22 @@ public class DependentTestList {
 
     public static DependentTestList fromFile(final Path path) throws IOException {
         TestPluginUtil.project.info("Reading dependent test list from " + path);
-        return new Gson().fromJson(FileUtil.readFile(path), DependentTestList.class);
+        return fromJson(FileUtil.readFile(path));
+    }
+
+    /**
+     * Reads both the compact format (see CompactFormat) and the old, plain Gson format.
+     */
+    public static DependentTestList fromJson(final String json) {
+        final JsonObject obj = CompactFormat.parse(json);
+
+        if (obj == null) {
+            return null;
+        } else if (CompactFormat.isCompact(obj)) {
+            return new DependentTestList(new CompactFormat.Decoder(obj).decode(obj.getAsJsonArray("dts")));
+        } else {
+            return new Gson().fromJson(obj, DependentTestList.class);
+        }
     }
 
     @Deprecated
@@ -70,7 +86,10 @@ public class DependentTestList {
 
     @Override
     public String toString() {
-        return new Gson().toJson(this);
+        final CompactFormat.Encoder encoder = new CompactFormat.Encoder();
+        final JsonObject json = new JsonObject();
+        json.add("dts", encoder.encode(dts));
+        return encoder.writeTo(json).toString();
     }
 
     public int size() {
@@ -0,0 +1,53 @@
+package edu.illinois.cs.dt.tools.runner.data;
+
+import com.google.gson.Gson;
+
+import java.util.List;
+
+/**
+ * The smallest set of tests that still makes a dependent test show its revealed behavior (see PolluterMinimizer).
+ *
+ * For a victim (a test that passes alone but not after some tests), the polluters are the tests that have to run
+ * before it for it to get its revealed result, and the cleaners are single tests that make it get its intended
+ * result again when run between the polluters and the victim.
+ * For a brittle test (a test that does not pass alone), the polluters are the tests that have to run before it
+ * for it to get its intended result instead (often called state-setters), and there are no cleaners.
+ */
+public class PolluterSet {
+    public static final String VICTIM = "victim";
+    public static final String BRITTLE = "brittle";
+
+    private final String kind;
+    private final List<String> polluters;
+    private final List<String> cleaners;
+    // Number of test runs the minimization took (not counting runs it could reuse)
+    private final int runs;
+
+    public PolluterSet(final String kind, final List<String> polluters, final List<String> cleaners, final int runs) {
+        this.kind = kind;
+        this.polluters = polluters;
+        this.cleaners = cleaners;
+        this.runs = runs;
+    }
+
+    public String kind() {
+        return kind;
+    }
+
+    public List<String> polluters() {
+        return polluters;
+    }
+
+    public List<String> cleaners() {
+        return cleaners;
+    }
+
+    public int runs() {
+        return runs;
+    }
+
+    @Override
+    public String toString() {
+        return new Gson().toJson(this);
+    }
+}
@@ -0,0 +1,99 @@
+package edu.illinois.cs.dt.tools.runner.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable test order that is shared by everything that refers to it.
+ * Equal orders are interned, so the prefixes of all the dependent tests found in a round are views
+ * (order, length) into the same list instead of copies, and the position of a test is looked up in
+ * constant time instead of with indexOf. Orders are interned weakly: an order stays shared only while something
+ * holds on to its SharedOrder (as TestRun does), not just to a view of it.
+ */
+public class SharedOrder {
+    private static final Interner<SharedOrder> ORDERS = Interners.newWeakInterner();
+
+    public static SharedOrder of(final List<String> order) {
+        return ORDERS.intern(new SharedOrder(ImmutableList.copyOf(order)));
+    }
+
+    private final ImmutableList<String> order;
+    private final int hashCode;
+    private volatile Map<String, Integer> index = null;
+
+    private SharedOrder(final ImmutableList<String> order) {
+        this.order = order;
+        this.hashCode = order.hashCode();
+    }
+
+    public List<String> order() {
+        return order;
+    }
+
+    public int size() {
+        return order.size();
+    }
+
+    public int indexOf(final String test) {
+        return index().getOrDefault(test, -1);
+    }
+
+    /**
+     * The first length tests of the order, without copying them.
+     */
+    public List<String> prefix(final int length) {
+        return order.subList(0, Math.min(order.size(), length));
+    }
+
+    /**
+     * The tests that run before the given test, or an empty list if it is not in this order.
+     */
+    public List<String> before(final String test) {
+        final int i = indexOf(test);
+
+        if (i == -1) {
+            return ImmutableList.of();
+        }
+
+        return prefix(i);
+    }
+
+    private Map<String, Integer> index() {
+        Map<String, Integer> result = index;
+
+        if (result == null) {
+            result = new HashMap<>(order.size() * 2);
+            for (int i = 0; i < order.size(); i++) {
+                // Same as indexOf: the first occurrence wins
+                result.putIfAbsent(order.get(i), i);
+            }
+            index = result;
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof SharedOrder)) {
+            return false;
+        }
+
+        final SharedOrder that = (SharedOrder) o;
+        return hashCode == that.hashCode && order.equals(that.order);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -1,6 +1,7 @@
 package edu.illinois.cs.dt.tools.runner.data;
 
 import edu.illinois.cs.dt.tools.detection.DetectorPathManager;
+import edu.illinois.cs.dt.tools.detection.filters.VerificationPlanner;
 import edu.illinois.cs.testrunner.configuration.Configuration;
 import edu.illinois.cs.testrunner.data.results.Result;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
@@ -8,7 +9,6 @@ import edu.illinois.cs.testrunner.runner.Runner;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.IntStream;
 
@@ -18,11 +18,25 @@ public class TestRun {
     private final List<String> order;
     private final Result result;
     private final String testRunId;
+    // The interned order that order is a prefix of. Holding on to it keeps it interned, so later runs of the same
+    // order share it instead of making their own copy. Not serialized; order is.
+    private final transient SharedOrder sharedOrder;
 
     public TestRun(final List<String> order, final Result result, final String testRunId) {
         this.order = order;
         this.result = result;
         this.testRunId = testRunId;
+        this.sharedOrder = null;
+    }
+
+    /**
+     * A run of the first length tests of the shared order, as a view into it rather than a copy.
+     */
+    public TestRun(final SharedOrder sharedOrder, final int length, final Result result, final String testRunId) {
+        this.order = sharedOrder.prefix(length);
+        this.result = result;
+        this.testRunId = testRunId;
+        this.sharedOrder = sharedOrder;
     }
 
     public List<String> order() {
@@ -38,22 +52,24 @@ public class TestRun {
     }
 
     public boolean verify(final String dt, final Runner runner, final Path path) {
+        return verify(dt, new VerificationPlanner(runner), path);
+    }
+
+    public boolean verify(final String dt, final VerificationPlanner planner, final Path path) {
         return IntStream.range(0, VERIFY_ROUNDS)
-                .allMatch(i -> verifyRound(dt, runner, path, i));
+                .allMatch(i -> verifyRound(dt, planner, path, i));
     }
 
-    private boolean verifyRound(final String dt, final Runner runner, final Path path, final int i) {
+    private boolean verifyRound(final String dt, final VerificationPlanner planner, final Path path, final int i) {
         Result newResult = null;
         try {
-            final List<String> order = new ArrayList<>(this.order);
-            if (!order.contains(dt)) {
-                order.add(dt);
-            }
-            final TestRunResult results = runner.runList(order).get();
+            final List<String> order = VerificationPlanner.verificationOrder(this.order, dt);
+            final VerificationPlanner.Verification verification = planner.verify(order, dt, i);
 
-            newResult = results.results().get(dt).result();
+            newResult = verification.result();
 
-            if (path != null) {
+            final TestRunResult results = planner.testRunResult(verification);
+            if (path != null && results != null) {
                 final Path outputPath = DetectorPathManager.pathWithRound(path, dt + "-" + this.result, i);
                 Files.createDirectories(outputPath.getParent());
                 Files.write(outputPath, results.toString().getBytes());
@@ -0,0 +1,49 @@
+package edu.illinois.cs.dt.tools.runner.pool;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Compares test results with the expected ones as they come in, and says when enough of them have
+ * differed that the rest of the run can be skipped.
+ * Results are compared by name, because the worker and the tests do not share the Result class.
+ */
+public class DivergenceCounter {
+    public static DivergenceCounter none() {
+        return new DivergenceCounter(Collections.emptyMap(), 0);
+    }
+
+    private final Map<String, String> expected;
+    private final int limit;
+    private int divergences = 0;
+
+    /**
+     * @param expected Expected result name for each test
+     * @param limit Number of differing results after which to stop. 0 (or less) means never stop.
+     */
+    public DivergenceCounter(final Map<String, String> expected, final int limit) {
+        this.expected = expected == null ? Collections.emptyMap() : expected;
+        this.limit = limit;
+    }
+
+    /**
+     * @return true if the run should stop now
+     */
+    public boolean record(final String testName, final String result) {
+        final String expectedResult = expected.get(testName);
+
+        if (expectedResult != null && !expectedResult.equals(result)) {
+            divergences++;
+        }
+
+        return limitReached();
+    }
+
+    public boolean limitReached() {
+        return limit > 0 && divergences >= limit;
+    }
+
+    public int divergences() {
+        return divergences;
+    }
+}
@@ -0,0 +1,193 @@
+package edu.illinois.cs.dt.tools.runner.pool;
+
+import com.google.gson.Gson;
+import edu.illinois.cs.testrunner.data.results.Result;
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+import org.junit.runner.Description;
+import org.junit.runner.Request;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runner.notification.StoppedByUserException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a JUnit 4 test order inside a pooled worker.
+ * This class is loaded by the per-run classloader (see PooledWorker), so the tests, JUnit and the
+ * classes used here all come from a fresh classloader, and no static state survives between runs.
+ */
+public class PooledTestExecutor {
+    /**
+     * Entry point called reflectively by PooledWorker. Returns the TestRunResult as JSON, because the
+     * TestRunResult class seen by the worker is not the same one as the one loaded here.
+     *
+     * If divergenceLimit is positive, the run stops as soon as that many tests got a result different from
+     * the one in expected. The result then only has the tests that actually ran, also in its test order, so
+     * every test in the order has a result.
+     */
+    public static String run(final String testRunId, final List<String> testOrder,
+                             final Map<String, String> expected, final int divergenceLimit) {
+        final Map<String, TestResult> results = new LinkedHashMap<>();
+        final DivergenceCounter divergences = new DivergenceCounter(expected, divergenceLimit);
+
+        int i = 0;
+        while (i < testOrder.size() && !divergences.limitReached()) {
+            // Consecutive methods from the same class run as one JUnit request, so class-level setup runs once
+            final String className = className(testOrder.get(i));
+            final List<String> group = new ArrayList<>();
+
+            while (i < testOrder.size() && className(testOrder.get(i)).equals(className)) {
+                group.add(testOrder.get(i));
+                i++;
+            }
+
+            runGroup(className, group, results, divergences);
+        }
+
+        if (divergences.limitReached()) {
+            final List<String> ranOrder = new ArrayList<>();
+            for (final String test : testOrder) {
+                if (results.containsKey(test)) {
+                    ranOrder.add(test);
+                }
+            }
+            return new Gson().toJson(new TestRunResult(testRunId, ranOrder, results));
+        }
+
+        return new Gson().toJson(new TestRunResult(testRunId, testOrder, results));
+    }
+
+    private static String className(final String testName) {
+        return testName.substring(0, testName.lastIndexOf('.'));
+    }
+
+    private static String testName(final Description description) {
+        return description.getClassName() + "." + description.getMethodName();
+    }
+
+    private static void runGroup(final String className, final List<String> group,
+                                 final Map<String, TestResult> results, final DivergenceCounter divergences) {
+        final Class<?> testClass;
+        try {
+            testClass = Class.forName(className, false, PooledTestExecutor.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            for (final String test : group) {
+                results.put(test, new TestResult(test, Result.ERROR, 0, e.getStackTrace()));
+            }
+            return;
+        }
+
+        final Map<String, Integer> position = new HashMap<>();
+        for (int i = 0; i < group.size(); i++) {
+            position.put(group.get(i), i);
+        }
+
+        final Request request = Request.aClass(testClass)
+                .filterWith(new Filter() {
+                    @Override
+                    public boolean shouldRun(final Description description) {
+                        return description.getMethodName() == null || position.containsKey(testName(description));
+                    }
+
+                    @Override
+                    public String describe() {
+                        return "tests in the requested order";
+                    }
+                })
+                .sortWith((a, b) -> Integer.compare(position.getOrDefault(testName(a), -1),
+                                                    position.getOrDefault(testName(b), -1)));
+
+        final RunNotifier notifier = new RunNotifier();
+        notifier.addListener(new ResultListener(results, divergences, notifier));
+        try {
+            request.getRunner().run(notifier);
+        } catch (StoppedByUserException e) {
+            // Stopped early, the rest of the tests are not run at all
+            return;
+        }
+
+        if (divergences.limitReached()) {
+            return;
+        }
+
+        // Anything that never finished (e.g., @BeforeClass failed) counts as an error, like a forked run would
+        for (final String test : group) {
+            if (!results.containsKey(test)) {
+                results.put(test, new TestResult(test, Result.ERROR, 0, new StackTraceElement[0]));
+            }
+        }
+    }
+
+    private static class ResultListener extends RunListener {
+        private final Map<String, TestResult> results;
+        private final Map<String, Long> startTimes = new HashMap<>();
+        private final Map<String, Failure> failures = new HashMap<>();
+        private final Map<String, Result> outcomes = new HashMap<>();
+        private final DivergenceCounter divergences;
+        private final RunNotifier notifier;
+
+        private ResultListener(final Map<String, TestResult> results,
+                               final DivergenceCounter divergences, final RunNotifier notifier) {
+            this.results = results;
+            this.divergences = divergences;
+            this.notifier = notifier;
+        }
+
+        @Override
+        public void testStarted(final Description description) {
+            startTimes.put(testName(description), System.nanoTime());
+        }
+
+        @Override
+        public void testFailure(final Failure failure) {
+            final Description description = failure.getDescription();
+
+            if (description.getMethodName() == null) {
+                // Class-level failure: the tests that did not finish are marked as errors by runGroup
+                return;
+            }
+
+            final String name = testName(description);
+            failures.put(name, failure);
+            outcomes.put(name, failure.getException() instanceof AssertionError ? Result.FAILURE : Result.ERROR);
+        }
+
+        @Override
+        public void testAssumptionFailure(final Failure failure) {
+            final String name = testName(failure.getDescription());
+            failures.put(name, failure);
+            outcomes.put(name, Result.SKIPPED);
+        }
+
+        @Override
+        public void testIgnored(final Description description) {
+            final String name = testName(description);
+            results.put(name, new TestResult(name, Result.SKIPPED, 0, new StackTraceElement[0]));
+        }
+
+        @Override
+        public void testFinished(final Description description) {
+            final String name = testName(description);
+            final long start = startTimes.getOrDefault(name, System.nanoTime());
+            final double time = (System.nanoTime() - start) / 1E9;
+
+            final Failure failure = failures.get(name);
+            final StackTraceElement[] stackTrace =
+                    failure == null ? new StackTraceElement[0] : failure.getException().getStackTrace();
+
+            final Result result = outcomes.getOrDefault(name, Result.PASS);
+            results.put(name, new TestResult(name, result, time, stackTrace));
+
+            if (divergences.record(name, result.name())) {
+                notifier.pleaseStop();
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package edu.illinois.cs.dt.tools.runner.pool;
+
+import com.google.gson.Gson;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.stream.Collectors;
+
+/**
+ * A long-lived test JVM. Reads one request per line on stdin, runs the tests in a fresh classloader
+ * and writes one response per line on stdout. Everything the tests print goes to the run's output file.
+ * Tests run on their own thread, see an empty stdin, and cannot call System.exit (see ExitGuard).
+ * System properties, the default locale and time zone and System.in are put back after every run (see JvmState).
+ * Other JVM-wide state (e.g., java.util.logging configuration) is shared between the runs of a worker.
+ */
+public class PooledWorker {
+    /**
+     * The classes the worker itself needs, besides the tests. Also used by the pool to build the worker's classpath.
+     */
+    public static List<Path> helperClasspath() {
+        final Set<Path> paths = new LinkedHashSet<>();
+
+        for (final Class<?> clz : new Class<?>[] {PooledWorker.class, Gson.class, TestRunResult.class}) {
+            try {
+                paths.add(Paths.get(clz.getProtectionDomain().getCodeSource().getLocation().toURI()));
+            } catch (URISyntaxException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        return new ArrayList<>(paths);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Gson gson = new Gson();
+        final PrintStream stdout = System.out;
+        final PrintStream stderr = System.err;
+
+        // Requests come in on the real stdin; tests only ever see an empty one, so they can neither eat
+        // requests nor close the pipe the pool talks to us through
+        final BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+
+        final ExitGuard exitGuard = ExitGuard.install();
+
+        final List<URL> helperUrls = new ArrayList<>();
+        for (final Path path : helperClasspath()) {
+            helperUrls.add(path.toUri().toURL());
+        }
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            final WorkerRequest request = gson.fromJson(line, WorkerRequest.class);
+            final WorkerResponse response = new WorkerResponse();
+            final JvmState state = JvmState.save();
+
+            try (final PrintStream output = new PrintStream(new FileOutputStream(request.output(), true), true)) {
+                System.setOut(output);
+                System.setErr(output);
+
+                response.result = runOnOwnThread(request, helperUrls);
+            } catch (Throwable t) {
+                final StringWriter sw = new StringWriter();
+                t.printStackTrace(new PrintWriter(sw));
+                response.error = sw.toString();
+            } finally {
+                System.setOut(stdout);
+                System.setErr(stderr);
+                state.restore();
+            }
+
+            // A thread the tests left running could still change things under the next run
+            response.leftoverThreads = state.leftoverThreads();
+
+            stdout.println(gson.toJson(response));
+            stdout.flush();
+        }
+
+        // The pool closed our stdin, so we are done, even if some test left a non-daemon thread running
+        if (exitGuard != null) {
+            exitGuard.allowExit();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Runs the tests on a new thread, so nothing a test leaves behind on its thread (thread locals, the
+     * interrupt flag, a changed context classloader) carries over into the next run or into the request loop.
+     */
+    private static String runOnOwnThread(final WorkerRequest request, final List<URL> helperUrls) throws Throwable {
+        final FutureTask<String> task = new FutureTask<>(() -> run(request, helperUrls));
+        final Thread thread = new Thread(task, "pooled-test-run-" + request.id());
+        thread.start();
+
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } finally {
+            // So it does not count as a thread the tests left behind
+            thread.join();
+        }
+    }
+
+    private static String run(final WorkerRequest request, final List<URL> helperUrls) throws Exception {
+        final List<URL> urls = new ArrayList<>();
+        for (final String entry : request.classpath().split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                urls.add(Paths.get(entry).toUri().toURL());
+            }
+        }
+        // Test classpath first, so the tests see their own version of JUnit
+        urls.addAll(helperUrls);
+
+        final Thread thread = Thread.currentThread();
+        final ClassLoader previous = thread.getContextClassLoader();
+
+        try (final URLClassLoader loader =
+                     new URLClassLoader(urls.toArray(new URL[0]), ClassLoader.getSystemClassLoader().getParent())) {
+            thread.setContextClassLoader(loader);
+
+            final Class<?> executor = loader.loadClass(PooledTestExecutor.class.getName());
+            return (String) executor.getMethod("run", String.class, List.class, Map.class, int.class)
+                    .invoke(null, request.id(), request.tests(), request.expected(), request.divergenceLimit());
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    /**
+     * The JVM-wide state that tests commonly change, saved before a run so it can be put back afterwards.
+     */
+    private static class JvmState {
+        // How long to wait for threads the tests started to finish on their own
+        private static final long THREAD_GRACE_MILLIS = 1000;
+
+        private final Properties properties;
+        private final Locale locale;
+        private final Locale displayLocale;
+        private final Locale formatLocale;
+        private final TimeZone timeZone;
+        private final Thread.UncaughtExceptionHandler uncaughtExceptionHandler;
+        private final Set<Thread> threads;
+
+        private JvmState() {
+            this.properties = (Properties) System.getProperties().clone();
+            this.locale = Locale.getDefault();
+            this.displayLocale = Locale.getDefault(Locale.Category.DISPLAY);
+            this.formatLocale = Locale.getDefault(Locale.Category.FORMAT);
+            this.timeZone = TimeZone.getDefault();
+            this.uncaughtExceptionHandler = Thread.getDefaultUncaughtExceptionHandler();
+            this.threads = Thread.getAllStackTraces().keySet();
+        }
+
+        private static JvmState save() {
+            return new JvmState();
+        }
+
+        private void restore() {
+            System.setProperties((Properties) properties.clone());
+            // Sets every category, so the categories are set again afterwards
+            Locale.setDefault(locale);
+            Locale.setDefault(Locale.Category.DISPLAY, displayLocale);
+            Locale.setDefault(Locale.Category.FORMAT, formatLocale);
+            TimeZone.setDefault(timeZone);
+            Thread.setDefaultUncaughtExceptionHandler(uncaughtExceptionHandler);
+            System.setIn(new ByteArrayInputStream(new byte[0]));
+        }
+
+        /**
+         * @return The names of the non-daemon threads started since this state was saved that are still running
+         */
+        private List<String> leftoverThreads() throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + THREAD_GRACE_MILLIS;
+
+            for (final Thread thread : newNonDaemonThreads()) {
+                final long left = deadline - System.currentTimeMillis();
+                if (left > 0) {
+                    thread.join(left);
+                }
+            }
+
+            return newNonDaemonThreads().stream().map(Thread::getName).collect(Collectors.toList());
+        }
+
+        private List<Thread> newNonDaemonThreads() {
+            return Thread.getAllStackTraces().keySet().stream()
+                    .filter(t -> t.isAlive() && !t.isDaemon() && !threads.contains(t))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Turns System.exit (and Runtime.halt) from a test into a SecurityException, so the test fails
+     * instead of taking the worker down with it. Every other permission is granted.
+     */
+    private static class ExitGuard extends SecurityManager {
+        private volatile boolean exitAllowed = false;
+
+        /**
+         * @return The installed guard, or null if this JVM does not allow installing a security manager
+         */
+        private static ExitGuard install() {
+            final ExitGuard guard = new ExitGuard();
+
+            try {
+                System.setSecurityManager(guard);
+                return guard;
+            } catch (SecurityException | UnsupportedOperationException e) {
+                System.err.println("[WARNING] Could not install the exit guard in a pooled test worker, " +
+                        "a test calling System.exit will end the run: " + e);
+                return null;
+            }
+        }
+
+        private void allowExit() {
+            exitAllowed = true;
+        }
+
+        @Override
+        public void checkPermission(final Permission perm) {
+        }
+
+        @Override
+        public void checkPermission(final Permission perm, final Object context) {
+        }
+
+        @Override
+        public void checkExit(final int status) {
+            if (!exitAllowed) {
+                throw new SecurityException("System.exit(" + status + ") called in a pooled test worker");
+            }
+        }
+    }
+}
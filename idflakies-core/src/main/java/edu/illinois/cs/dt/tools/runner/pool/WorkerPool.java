@@ -0,0 +1,233 @@
+package edu.illinois.cs.dt.tools.runner.pool;
+
+import com.google.gson.Gson;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps warm test JVMs (see PooledWorker) around between test runs, so class loading and JIT warm-up
+ * is paid once per worker instead of once per run. Each run still gets a fresh classloader.
+ * Workers are replaced after dt.runner.pool.max_runs runs, when a run times out or the worker dies,
+ * or when a run leaves non-daemon threads running.
+ * A run whose worker died fails, like a run whose forked test JVM crashed, and the next run gets a new worker.
+ */
+public class WorkerPool {
+    public static boolean enabled() {
+        return Boolean.parseBoolean(Configuration.config().getProperty("dt.runner.pool", "false"));
+    }
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "worker-pool-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, String> environment;
+    private final int maxRuns = Configuration.config().getProperty("dt.runner.pool.max_runs", 50);
+    private final long timeoutSeconds = Configuration.config().getProperty("dt.runner.pool.timeout", 6 * 3600);
+    // Passed to every worker JVM, e.g. the -javaagent and other arguments the tests normally run with.
+    // The Maven plugin fills this in from surefire's argLine and systemPropertyVariables unless it is set.
+    private final List<String> jvmArgs = jvmArgs(Configuration.config().getProperty("dt.runner.pool.jvm_args", ""));
+
+    private final Deque<Worker> idle = new ArrayDeque<>();
+    private final List<Worker> all = new ArrayList<>();
+
+    public WorkerPool(final Map<String, String> environment) {
+        this.environment = environment;
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+    }
+
+    public TestRunResult run(final String cp, final List<String> testOrder, final Path outputPath) throws Exception {
+        return run(cp, testOrder, outputPath, null, 0);
+    }
+
+    /**
+     * Runs the tests, stopping early once divergenceLimit tests got a result different from the expected one.
+     */
+    public TestRunResult run(final String cp, final List<String> testOrder, final Path outputPath,
+                             final Map<String, String> expected, final int divergenceLimit) throws Exception {
+        final Worker worker = borrow();
+        boolean healthy = false;
+
+        try {
+            final TestRunResult result = worker.run(new WorkerRequest(UUID.randomUUID().toString(), testOrder, cp,
+                                                                      outputPath.toAbsolutePath().toString(),
+                                                                      expected, divergenceLimit));
+            healthy = true;
+            return result;
+        } finally {
+            giveBack(worker, healthy);
+        }
+    }
+
+    private static List<String> jvmArgs(final String args) {
+        final List<String> result = new ArrayList<>();
+
+        for (final String arg : args.trim().split("\\s+")) {
+            if (!arg.isEmpty()) {
+                result.add(arg);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Java 18 and later refuse System.setSecurityManager unless the JVM is started with java.security.manager=allow.
+     */
+    private static boolean securityManagerNeedsOptIn() {
+        final String version = System.getProperty("java.specification.version");
+
+        try {
+            return !version.startsWith("1.") && Integer.parseInt(version) >= 18;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private synchronized Worker borrow() throws IOException {
+        while (!idle.isEmpty()) {
+            final Worker worker = idle.removeFirst();
+
+            // E.g., a thread a test left behind crashed the JVM after the run finished
+            if (worker.isAlive()) {
+                return worker;
+            }
+
+            worker.destroy();
+            all.remove(worker);
+        }
+
+        final Worker worker = new Worker(environment);
+        all.add(worker);
+        return worker;
+    }
+
+    private synchronized void giveBack(final Worker worker, final boolean healthy) {
+        if (healthy && !worker.retired() && worker.runs() < maxRuns) {
+            idle.addFirst(worker);
+        } else {
+            worker.destroy();
+            all.remove(worker);
+        }
+    }
+
+    public synchronized void close() {
+        all.forEach(Worker::destroy);
+        all.clear();
+        idle.clear();
+    }
+
+    private class Worker {
+        private final Process process;
+        private final BufferedWriter in;
+        private final BufferedReader out;
+        private int runs = 0;
+        private boolean retired = false;
+
+        private Worker(final Map<String, String> environment) throws IOException {
+            final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            final String cp = PooledWorker.helperClasspath().stream()
+                    .map(Path::toString)
+                    .collect(Collectors.joining(File.pathSeparator));
+
+            final List<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(jvmArgs);
+            if (securityManagerNeedsOptIn()) {
+                // Needed for PooledWorker's exit guard on newer JVMs
+                command.add("-Djava.security.manager=allow");
+            }
+            command.add("-cp");
+            command.add(cp);
+            command.add(PooledWorker.class.getName());
+
+            final ProcessBuilder builder = new ProcessBuilder(command);
+            builder.environment().putAll(environment);
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+            this.process = builder.start();
+            this.in = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            this.out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        private int runs() {
+            return runs;
+        }
+
+        private boolean retired() {
+            return retired;
+        }
+
+        private boolean isAlive() {
+            return process.isAlive();
+        }
+
+        private TestRunResult run(final WorkerRequest request) throws Exception {
+            runs++;
+
+            // The worker gets killed if the run takes too long, which ends the readLine below
+            final ScheduledFuture<?> timeout =
+                    WATCHDOG.schedule(process::destroyForcibly, timeoutSeconds, TimeUnit.SECONDS);
+
+            try {
+                final String line;
+                try {
+                    in.write(request.toString());
+                    in.newLine();
+                    in.flush();
+
+                    line = out.readLine();
+                } catch (IOException e) {
+                    throw new IOException("Pooled test worker died (or timed out) while running " + request.id(), e);
+                }
+
+                if (line == null) {
+                    throw new IOException("Pooled test worker died (or timed out) while running " + request.id());
+                }
+
+                final WorkerResponse response = new Gson().fromJson(line, WorkerResponse.class);
+
+                if (!response.leftoverThreads().isEmpty()) {
+                    System.out.println("[WARNING] Run " + request.id() + " left threads running in its pooled test JVM " +
+                            response.leftoverThreads() + ", replacing the JVM.");
+                    retired = true;
+                }
+
+                if (response.result() == null) {
+                    throw new IOException("Pooled test worker failed to run " + request.id() + ":\n" + response.error());
+                }
+
+                return new Gson().fromJson(response.result(), TestRunResult.class);
+            } finally {
+                timeout.cancel(false);
+            }
+        }
+
+        private void destroy() {
+            process.destroyForcibly();
+        }
+    }
+}
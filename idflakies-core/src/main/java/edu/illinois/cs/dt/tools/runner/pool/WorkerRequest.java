@@ -0,0 +1,55 @@
+package edu.illinois.cs.dt.tools.runner.pool;
+
+import com.google.gson.Gson;
+
+import java.util.List;
+import java.util.Map;
+
+public class WorkerRequest {
+    private final String id;
+    private final List<String> tests;
+    private final String classpath;
+    private final String output;
+    // Expected result (by name) of each test, and how many differences to allow before stopping the run
+    private final Map<String, String> expected;
+    private final int divergenceLimit;
+
+    public WorkerRequest(final String id, final List<String> tests, final String classpath, final String output,
+                         final Map<String, String> expected, final int divergenceLimit) {
+        this.id = id;
+        this.tests = tests;
+        this.classpath = classpath;
+        this.output = output;
+        this.expected = expected;
+        this.divergenceLimit = divergenceLimit;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public List<String> tests() {
+        return tests;
+    }
+
+    public String classpath() {
+        return classpath;
+    }
+
+    public String output() {
+        return output;
+    }
+
+    public Map<String, String> expected() {
+        return expected;
+    }
+
+    public int divergenceLimit() {
+        return divergenceLimit;
+    }
+
+    @Override
+    public String toString() {
+        return new Gson().toJson(this);
+    }
+}
@@ -0,0 +1,31 @@
+package edu.illinois.cs.dt.tools.runner.pool;
+
+import com.google.gson.Gson;
+
+import java.util.Collections;
+import java.util.List;
+
+public class WorkerResponse {
+    // JSON of the TestRunResult, or null if the run failed
+    String result;
+    String error;
+    // Non-daemon threads the tests left running; the worker is replaced if there are any
+    List<String> leftoverThreads;
+
+    public String result() {
+        return result;
+    }
+
+    public String error() {
+        return error;
+    }
+
+    public List<String> leftoverThreads() {
+        return leftoverThreads == null ? Collections.emptyList() : leftoverThreads;
+    }
+
+    @Override
+    public String toString() {
+        return new Gson().toJson(this);
+    }
+}
@@ -0,0 +1,120 @@
+package edu.illinois.cs.dt.tools.utility;
+
+import java.util.Arrays;
+
+/**
+ * Map from long to int that keeps its entries in two flat arrays (open addressing with linear probing),
+ * so there are no boxed keys or entry objects. Meant for maps keyed by order hashes (see OrderHash).
+ */
+public class LongIntHashMap {
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+    private int[] values;
+    private int size = 0;
+
+    // 0 marks empty slots, so its value is kept on the side
+    private boolean hasZeroKey = false;
+    private int zeroValue = 0;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(final int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean containsKey(final long key) {
+        if (key == EMPTY) {
+            return hasZeroKey;
+        }
+
+        return keys[slot(keys, key)] == key;
+    }
+
+    /**
+     * @return The value of the key, or missing if there is none
+     */
+    public int get(final long key, final int missing) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : missing;
+        }
+
+        final int slot = slot(keys, key);
+        return keys[slot] == key ? values[slot] : missing;
+    }
+
+    public void put(final long key, final int value) {
+        if (key == EMPTY) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+
+        final int slot = slot(keys, key);
+        if (keys[slot] != key) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+
+        // Keep the load factor at most 1/2, so probes stay short
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    private void grow() {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                final int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * The slot that holds the key, or the empty slot where it would go.
+     */
+    private static int slot(final long[] keys, final long key) {
+        final int mask = keys.length - 1;
+        int slot = (int) (mix(key) & mask);
+
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
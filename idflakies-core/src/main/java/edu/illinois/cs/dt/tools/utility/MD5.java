@@ -1,5 +1,9 @@
 package edu.illinois.cs.dt.tools.utility;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -10,17 +14,41 @@ public class MD5 {
     // From: https://stackoverflow.com/a/6565597/1498618
     public static String md5(final String md5) {
         try {
-            final byte[] array = MessageDigest.getInstance("md5").digest(md5.getBytes());
+            return hex(MessageDigest.getInstance("md5").digest(md5.getBytes()));
+        } catch (NoSuchAlgorithmException ignored) {}
+        return "";
+    }
 
-            final StringBuilder sb = new StringBuilder();
+    /**
+     * The MD5 of the contents of the file, read a block at a time.
+     */
+    public static String md5(final Path file) throws IOException {
+        try (final InputStream in = Files.newInputStream(file)) {
+            final MessageDigest digest = MessageDigest.getInstance("md5");
+            final byte[] buffer = new byte[1 << 16];
 
-            for (final byte anArray : array) {
-                sb.append(Integer.toHexString((anArray & 0xFF) | 0x100), 1, 3);
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
             }
 
-            return sb.toString();
-        } catch (NoSuchAlgorithmException ignored) {}
-        return "";
+            return hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The digest as lowercase hex, two characters per byte.
+     */
+    public static String hex(final byte[] digest) {
+        final StringBuilder sb = new StringBuilder();
+
+        for (final byte b : digest) {
+            sb.append(Integer.toHexString((b & 0xFF) | 0x100), 1, 3);
+        }
+
+        return sb.toString();
     }
 
     public static String hashOrder(final List<String> order) {
@@ -0,0 +1,99 @@
+package edu.illinois.cs.dt.tools.utility;
+
+import edu.illinois.cs.testrunner.configuration.Configuration;
+
+import java.util.List;
+
+/**
+ * 64-bit rolling hash of test orders.
+ *
+ * The hash of an order is built one test at a time, so the hash of every prefix of an order
+ * comes out of a single pass (see prefixes), instead of joining and hashing each prefix separately.
+ * Set dt.order_hash.algorithm to "md5" to get the old MD5 strings from key, e.g., to keep matching
+ * keys written by older versions.
+ */
+public class OrderHash {
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final long EMPTY = 0x2545F4914F6CDD1DL;
+
+    private static final boolean USE_MD5 =
+            "md5".equalsIgnoreCase(Configuration.config().getProperty("dt.order_hash.algorithm", "rolling"));
+    // Bump whenever the rolling hash changes, so keys written with an older hash never match (MD5 keys have no prefix)
+    private static final String ROLLING_KEY_PREFIX = "r1-";
+
+    public static long hash(final List<String> order) {
+        long hash = EMPTY;
+
+        for (final String test : order) {
+            hash = next(hash, test);
+        }
+
+        return hash;
+    }
+
+    /**
+     * @return An array where element i is the hash of the first i tests of the order (so it has order.size() + 1 elements)
+     */
+    public static long[] prefixes(final List<String> order) {
+        final long[] hashes = new long[order.size() + 1];
+        hashes[0] = EMPTY;
+
+        for (int i = 0; i < order.size(); i++) {
+            hashes[i + 1] = next(hashes[i], order.get(i));
+        }
+
+        return hashes;
+    }
+
+    /**
+     * The hash of the order with the test appended, given the hash of the order.
+     */
+    public static long next(final long hash, final String test) {
+        return hash * MULTIPLIER + testHash(test);
+    }
+
+    /**
+     * String form of the order hash, for keys that are written to disk.
+     */
+    public static String key(final List<String> order) {
+        if (USE_MD5) {
+            return MD5.hashOrder(order);
+        }
+
+        return ROLLING_KEY_PREFIX + toString(hash(order));
+    }
+
+    /**
+     * Whether the key was made by key with the current dt.order_hash.algorithm (and version of the rolling hash).
+     */
+    public static boolean isCurrentKey(final String key) {
+        if (USE_MD5) {
+            return !key.contains("-");
+        }
+
+        return key.startsWith(ROLLING_KEY_PREFIX);
+    }
+
+    public static String toString(final long hash) {
+        final String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    // FNV-1a over the characters, then a final mix so similar names don't give similar hashes
+    private static long testHash(final String test) {
+        long h = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < test.length(); i++) {
+            h ^= test.charAt(i);
+            h *= 0x100000001b3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return h;
+    }
+}
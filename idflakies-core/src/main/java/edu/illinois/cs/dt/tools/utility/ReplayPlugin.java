@@ -1,7 +1,6 @@
 package edu.illinois.cs.dt.tools.utility;
 
 import com.google.gson.Gson;
-import com.reedoei.eunomia.io.files.FileUtil;
 import edu.illinois.cs.testrunner.configuration.Configuration;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 import edu.illinois.cs.testrunner.coreplugin.TestPlugin;
@@ -49,7 +48,7 @@ public class ReplayPlugin extends TestPlugin {
 
     private List<String> testOrder() throws IOException {
         try {
-            return new Gson().fromJson(FileUtil.readFile(replayPath), TestRunResult.class).testOrder();
+            return TestRunResultReader.readWithoutStackTraces(replayPath).testOrder();
         } catch (Exception e) {
             return Files.readAllLines(replayPath);
         }
@@ -1,9 +1,9 @@
 package edu.illinois.cs.dt.tools.utility;
 
-import com.google.gson.Gson;
 import com.reedoei.eunomia.collections.ListEx;
 import com.reedoei.eunomia.collections.PairStream;
 import com.reedoei.eunomia.io.files.FileUtil;
+import edu.illinois.cs.dt.tools.runner.ResultLog;
 import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 
@@ -26,9 +26,19 @@ public class TestRunParser {
     }
 
     private final Path basePath;
+    private final boolean stackTraces;
 
     public TestRunParser(final Path basePath) {
+        this(basePath, true);
+    }
+
+    /**
+     * @param stackTraces Whether to read the stack traces of the results; scans that only look at the orders and
+     *                    the results of the tests should not, since the traces are most of what is read
+     */
+    public TestRunParser(final Path basePath, final boolean stackTraces) {
         this.basePath = basePath;
+        this.stackTraces = stackTraces;
     }
 
     public PairStream<String, TestRunResult> testResults() throws IOException {
@@ -45,12 +55,15 @@ public class TestRunParser {
     }
 
     private Stream<TestRunResult> testRunResult(final Path path) {
+        if (ResultLog.exists(path)) {
+            return ResultLog.at(path).results(stackTraces);
+        }
+
         try {
             return listFiles(path.resolve("results")).stream()
-                    .flatMap(FileUtil::safeReadFile)
-                    .flatMap(s -> {
+                    .flatMap(p -> {
                         try {
-                            return Stream.of(new Gson().fromJson(s, TestRunResult.class));
+                            return Stream.of(stackTraces ? TestRunResultReader.read(p) : TestRunResultReader.readWithoutStackTraces(p));
                         } catch (Exception e) {
                             return Stream.empty();
                         }
@@ -61,6 +74,11 @@ public class TestRunParser {
     }
 
     private Stream<String> testRunOutput(final Path path) {
+        if (ResultLog.exists(path)) {
+            final ResultLog log = ResultLog.at(path);
+            return log.ids().stream().map(id -> log.output(id).orElse(""));
+        }
+
         try {
             return listFiles(path.resolve("output")).stream()
                     .flatMap(FileUtil::safeReadFile);
@@ -69,12 +87,12 @@ public class TestRunParser {
         }
     }
 
+    // Either one file per run in output/ and results/, or a ResultLog
     private boolean isTestRun(final Path path) {
         final Path output = path.resolve("output");
         final Path results = path.resolve("results");
 
         return path.getFileName().toString().equals(RunnerPathManager.TEST_RUNS.getFileName().toString()) &&
-               Files.isDirectory(output) &&
-               Files.isDirectory(results);
+               ((Files.isDirectory(output) && Files.isDirectory(results)) || ResultLog.exists(path));
     }
 }
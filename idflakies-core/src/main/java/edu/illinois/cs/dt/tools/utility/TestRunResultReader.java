@@ -0,0 +1,122 @@
+package edu.illinois.cs.dt.tools.utility;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import edu.illinois.cs.testrunner.data.results.Result;
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads test run result files (results/ID) straight from the file, without reading them into a String first.
+ *
+ * Callers that only need the test order and the result of each test (like the bulk scans in Analysis) can skip
+ * the stack traces, which are most of a failing run's file; those results get empty stack traces.
+ */
+public class TestRunResultReader {
+    // Gson instances are thread safe, so one is shared by everyone reading results
+    public static final Gson GSON = new Gson();
+
+    private static final StackTraceElement[] NO_STACK_TRACE = new StackTraceElement[0];
+
+    /**
+     * @return The test run result, or null if the file is empty or contains null (like Gson.fromJson would return)
+     */
+    public static TestRunResult read(final Path path) throws IOException {
+        try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, TestRunResult.class);
+        }
+    }
+
+    /**
+     * Same as read, but skips over the stack traces instead of decoding them.
+     */
+    public static TestRunResult readWithoutStackTraces(final Path path) throws IOException {
+        try (final JsonReader reader = new JsonReader(Files.newBufferedReader(path, StandardCharsets.UTF_8))) {
+            reader.setLenient(true);
+
+            try {
+                if (reader.peek() == JsonToken.NULL) {
+                    return null;
+                }
+            } catch (EOFException e) {
+                return null;
+            }
+
+            return testRunResult(reader);
+        }
+    }
+
+    private static TestRunResult testRunResult(final JsonReader reader) throws IOException {
+        String id = null;
+        final List<String> testOrder = new ArrayList<>();
+        final Map<String, TestResult> results = new HashMap<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String field = reader.nextName();
+
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            } else if (field.equals("id")) {
+                id = reader.nextString();
+            } else if (field.equals("testOrder")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    testOrder.add(reader.nextString());
+                }
+                reader.endArray();
+            } else if (field.equals("results")) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    final String testName = reader.nextName();
+                    results.put(testName, testResult(reader));
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new TestRunResult(id, testOrder, results);
+    }
+
+    private static TestResult testResult(final JsonReader reader) throws IOException {
+        String name = null;
+        Result result = null;
+        double time = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String field = reader.nextName();
+
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            } else if (field.equals("name")) {
+                name = reader.nextString();
+            } else if (field.equals("result")) {
+                result = Result.valueOf(reader.nextString());
+            } else if (field.equals("time")) {
+                time = reader.nextDouble();
+            } else {
+                // Mostly the stack trace
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new TestResult(name, result, time, NO_STACK_TRACE);
+    }
+}
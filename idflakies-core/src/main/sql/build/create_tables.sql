@@ -1,4 +1,4 @@
-create table subject_raw
+create table if not exists subject_raw
 (
   slug text primary key,
   url text not null,
@@ -7,7 +7,7 @@ create table subject_raw
   test_loc integer not null
 );
 
-create table subject
+create table if not exists subject
 (
   name text primary key,
   slug text not null,
@@ -15,7 +15,7 @@ create table subject
   foreign key(slug) references subject_raw(slug)
 );
 
-create table test_run_result
+create table if not exists test_run_result
 (
   str_id text primary key,
   subject_name text not null,
@@ -24,7 +24,7 @@ create table test_run_result
   foreign key(subject_name) references subject(name)
 );
 
-create table flaky_test
+create table if not exists flaky_test
 (
   id integer primary key,
   name text not null,
@@ -35,7 +35,7 @@ create table flaky_test
   foreign key(revealed_id) references test_run_result(str_id)
 );
 
-create table flaky_test_list
+create table if not exists flaky_test_list
 (
   id integer primary key,
   flaky_test_list_id integer not null,
@@ -44,7 +44,7 @@ create table flaky_test_list
   foreign key(flaky_test_id) references flaky_test(id)
 );
 
-create table detection_round
+create table if not exists detection_round
 (
   id integer primary key,
   subject_name text not null,
@@ -59,7 +59,7 @@ create table detection_round
   foreign key(filtered_id) references flaky_test_list(flaky_test_list_id)
 );
 
-create table detection_round_test_runs
+create table if not exists detection_round_test_runs
 (
   id integer primary key,
   detection_round_id integer not null,
@@ -69,7 +69,7 @@ create table detection_round_test_runs
   foreign key(test_run_result_id) references test_run_result(str_id)
 );
 
-create table test_result
+create table if not exists test_result
 (
   id integer primary key,
   test_run_result_str_id text not null,
@@ -81,7 +81,7 @@ create table test_result
   foreign key(test_run_result_str_id) references test_run_result(str_id)
 );
 
-create table verify_round
+create table if not exists verify_round
 (
   id integer primary key,
   subject_name text not null,
@@ -98,7 +98,7 @@ create table verify_round
   foreign key(test_run_result_str_id) references test_run_result(str_id)
 );
 
-create table confirmation_runs
+create table if not exists confirmation_runs
 (
   test_name text,
   round_type text,
@@ -110,7 +110,7 @@ create table confirmation_runs
   failing_result text not null
 );
 
-create table module_test_time
+create table if not exists module_test_time
 (
   id integer primary key,
   coordinates text not null,
@@ -120,7 +120,7 @@ create table module_test_time
   test_time real not null
 );
 
-create table original_order
+create table if not exists original_order
 (
   id integer primary key,
   subject_name text not null,
@@ -131,14 +131,14 @@ create table original_order
   foreign key(subject_name) references subject(name)
 );
 
-create table num_rounds
+create table if not exists num_rounds
 (
   name text not null,
   round_type text not null,
   number integer not null
 );
 
-create table flaky_test_classification
+create table if not exists flaky_test_classification
 (
   subject_name text not null,
   test_name text not null,
@@ -148,7 +148,7 @@ create table flaky_test_classification
   foreign key(test_name) references original_order(test_name)
 );
 
-create table flaky_test_failures
+create table if not exists flaky_test_failures
 (
   subject_name text not null,
   test_name text not null,
@@ -158,7 +158,7 @@ create table flaky_test_failures
   rounds integer not null
 );
 
-create table detection_round_failures
+create table if not exists detection_round_failures
 (
   detection_round_id integer not null,
   round_type text not null,
@@ -166,7 +166,7 @@ create table detection_round_failures
   od_found integer not null
 );
 
-create table operation_time
+create table if not exists operation_time
 (
   id integer primary key,
   start_time integer not null,
@@ -174,7 +174,7 @@ create table operation_time
   elapsed_time real not null
 );
 
-create table subject_info
+create table if not exists subject_info
 (
   id integer primary key,
   name text not null,
@@ -183,7 +183,19 @@ create table subject_info
   foreign key(name) references subject(name)
 );
 
-create view unfiltered_flaky_tests as
+-- Files that have been ingested, so incremental runs can skip the ones that did not change.
+-- Paths are relative to the results directory; folder is the results folder the file belongs to.
+-- hash is null for files ingested outside incremental mode.
+create table if not exists ingest_manifest
+(
+  path text primary key,
+  folder text not null,
+  size integer not null,
+  mtime integer not null,
+  hash text
+);
+
+create view if not exists unfiltered_flaky_tests as
 select dr.id as detection_round_id,
        dr.subject_name,
        case
@@ -196,7 +208,7 @@ from flaky_test ft
 inner join flaky_test_list as ftl on ftl.flaky_test_id = ft.id
 inner join detection_round as dr on dr.unfiltered_id = ftl.flaky_test_list_id;
 
-create view filtered_flaky_tests as
+create view if not exists filtered_flaky_tests as
 select dr.id as detection_round_id,
        dr.subject_name,
        case
@@ -209,7 +221,7 @@ from flaky_test ft
 inner join flaky_test_list as ftl on ftl.flaky_test_id = ft.id
 inner join detection_round as dr on dr.filtered_id = ftl.flaky_test_list_id;
 
-create view confirmation_by_test as
+create view if not exists confirmation_by_test as
 select cr.test_name,
        sum(case
             when cr.passing_result = cr.passing_expected_result and
@@ -220,7 +232,7 @@ select cr.test_name,
 from confirmation_runs as cr
 group by cr.test_name;
 
-create view flaky_test_info as
+create view if not exists flaky_test_info as
 select distinct uft.detection_round_id,
                 uft.subject_name,
                 case
@@ -233,12 +245,12 @@ select distinct uft.detection_round_id,
 from unfiltered_flaky_tests as uft
 left join filtered_flaky_tests as fft on uft.test_name = fft.test_name and uft.subject_name = fft.subject_name;
 
-create view flaky_test_counts as
+create view if not exists flaky_test_counts as
 select subject_name, flaky_type, count(distinct test_name) as number
 from flaky_test_classification
 group by subject_name, flaky_type;
 
-create view subject_overview as
+create view if not exists subject_overview as
 select si.name,
        si.test_count,
 	     count(distinct no_rounds.id) as no_round_num,
@@ -252,7 +264,7 @@ left join flaky_test_counts as nonorder on nonorder.subject_name = si.name and n
 left join flaky_test_counts as orderdep on orderdep.subject_name = si.name and orderdep.flaky_type = 'OD'
 group by si.name;
 
-create view confirmation_effectiveness as
+create view if not exists confirmation_effectiveness as
 select ftc.test_name, ftc.flaky_type,
        cr.round_type,
 	   sum(case
@@ -0,0 +1,4 @@
+delete from detection_round
+where subject_name = ? and
+      round_type = ? and
+      round_number between ? and ?
\ No newline at end of file
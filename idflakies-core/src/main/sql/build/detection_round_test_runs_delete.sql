@@ -0,0 +1,9 @@
+delete from detection_round_test_runs
+where detection_round_id in
+(
+  select id
+  from detection_round
+  where subject_name = ? and
+        round_type = ? and
+        round_number between ? and ?
+)
\ No newline at end of file
@@ -0,0 +1,2 @@
+select ifnull(max(flaky_test_list_id) + 1, 0) as next_id
+from flaky_test_list
\ No newline at end of file
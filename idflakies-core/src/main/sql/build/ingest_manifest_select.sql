@@ -0,0 +1,5 @@
+select size,
+       mtime,
+       hash
+from ingest_manifest
+where path = ?
\ No newline at end of file
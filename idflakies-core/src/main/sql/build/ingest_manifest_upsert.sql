@@ -0,0 +1,16 @@
+insert or replace into ingest_manifest
+(
+  path,
+  folder,
+  size,
+  mtime,
+  hash
+)
+values
+(
+  ?,
+  ?,
+  ?,
+  ?,
+  ?
+)
\ No newline at end of file
@@ -0,0 +1,2 @@
+delete from original_order
+where subject_name = ?
\ No newline at end of file
@@ -0,0 +1,10 @@
+-- Empties the tables that post_setup.sql fills, so it can run again on an incrementally updated database
+delete from subject_info;
+delete from confirmation_runs;
+delete from flaky_test_classification;
+delete from num_rounds;
+delete from flaky_test_failures;
+delete from detection_round_failures;
+drop table if exists temp;
+drop table if exists temp2;
+drop table if exists temp3;
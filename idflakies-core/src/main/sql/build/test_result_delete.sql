@@ -0,0 +1,2 @@
+delete from test_result
+where test_run_result_str_id = ?
\ No newline at end of file
@@ -0,0 +1,2 @@
+delete from test_run_result
+where str_id = ?
\ No newline at end of file
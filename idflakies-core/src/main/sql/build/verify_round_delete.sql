@@ -0,0 +1,6 @@
+delete from verify_round
+where subject_name = ? and
+      round_type = ? and
+      round_number = ? and
+      verify_round_number = ? and
+      test_name = ?
\ No newline at end of file
@@ -0,0 +1,111 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PolluterMinimizerTest {
+    private static List<String> tests(final int count) {
+        final List<String> tests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tests.add("a.A.t" + i);
+        }
+        return tests;
+    }
+
+    /**
+     * Runs ddmin where an order "works" if the predicate holds for it, counting the candidates that were tried.
+     */
+    private static List<String> ddmin(final List<String> tests, final Predicate<List<String>> works,
+                                      final List<List<String>> tried) throws Exception {
+        return PolluterMinimizer.ddmin(tests, candidates -> {
+            for (int i = 0; i < candidates.size(); i++) {
+                tried.add(candidates.get(i));
+                if (works.test(candidates.get(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        });
+    }
+
+    private static List<String> ddmin(final List<String> tests, final Predicate<List<String>> works) throws Exception {
+        return ddmin(tests, works, new ArrayList<>());
+    }
+
+    @Test
+    public void testSinglePolluter() throws Exception {
+        final List<String> tests = tests(16);
+
+        assertEquals(Collections.singletonList("a.A.t11"), ddmin(tests, order -> order.contains("a.A.t11")));
+    }
+
+    @Test
+    public void testTwoPollutersInDifferentChunks() throws Exception {
+        final List<String> tests = tests(10);
+
+        assertEquals(Arrays.asList("a.A.t1", "a.A.t8"),
+                ddmin(tests, order -> order.contains("a.A.t1") && order.contains("a.A.t8")));
+    }
+
+    @Test
+    public void testKeepsOrder() throws Exception {
+        final List<String> tests = Arrays.asList("c", "a", "d", "b", "e");
+
+        // Polluters come back in the order they were run in, not sorted
+        assertEquals(Arrays.asList("d", "b"), ddmin(tests, order -> order.contains("b") && order.contains("d")));
+    }
+
+    @Test
+    public void testResultIsOneMinimal() throws Exception {
+        final List<String> tests = tests(12);
+        // Needs t2 and at least one of t5 and t9
+        final Predicate<List<String>> works =
+                order -> order.contains("a.A.t2") && (order.contains("a.A.t5") || order.contains("a.A.t9"));
+
+        final List<String> result = ddmin(tests, works);
+
+        assertTrue(works.test(result));
+        for (final String test : result) {
+            final List<String> smaller = new ArrayList<>(result);
+            smaller.remove(test);
+            assertTrue("Could still drop " + test + " from " + result, !works.test(smaller));
+        }
+    }
+
+    @Test
+    public void testNothingSmallerWorks() throws Exception {
+        final List<String> tests = tests(4);
+
+        // Only the whole prefix works, so that is what is left
+        assertEquals(tests, ddmin(tests, order -> order.size() == 4));
+    }
+
+    @Test
+    public void testSingleTestIsNotRun() throws Exception {
+        final List<List<String>> tried = new ArrayList<>();
+
+        assertEquals(Collections.singletonList("a.A.t0"), ddmin(tests(1), order -> true, tried));
+        assertEquals(0, tried.size());
+    }
+
+    @Test
+    public void testNoCandidateRepeatsWholeOrder() throws Exception {
+        final List<String> tests = tests(8);
+        final List<List<String>> tried = new ArrayList<>();
+
+        ddmin(tests, order -> order.contains("a.A.t3") && order.contains("a.A.t4"), tried);
+
+        // The whole order is already known to work, so it is never run again
+        for (final List<String> candidate : tried) {
+            assertTrue(candidate.size() < tests.size());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package edu.illinois.cs.dt.tools.detection.detectors;
+
+import edu.illinois.cs.dt.tools.detection.ShardManifest;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.testrunner.coreplugin.TestPluginUtil;
+import edu.illinois.cs.testrunner.data.results.Result;
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+import edu.illinois.cs.testrunner.util.ProjectWrapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class ShardDetectorTest {
+    private static final String ADAPTIVE = "dt.detector.adaptive";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ProjectWrapper previousProject;
+
+    @Before
+    public void setUp() {
+        previousProject = TestPluginUtil.project;
+        TestPluginUtil.project = new FolderProject(folder.getRoot());
+        Configuration.config().properties().setProperty(ADAPTIVE, "true");
+    }
+
+    @After
+    public void tearDown() {
+        TestPluginUtil.project = previousProject;
+        Configuration.config().properties().remove(ADAPTIVE);
+    }
+
+    private static List<String> tests(final int count) {
+        final List<String> tests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tests.add("a.A" + (i % 3) + ".t" + i);
+        }
+        return tests;
+    }
+
+    private static TestRunResult passing(final String id, final List<String> order) {
+        final Map<String, TestResult> results = new LinkedHashMap<>();
+        for (final String test : order) {
+            results.put(test, new TestResult(test, Result.PASS, 0.1, new StackTraceElement[0]));
+        }
+        return new TestRunResult(id, order, results);
+    }
+
+    /**
+     * Runs the shard with every test passing, and returns the orders it ran.
+     */
+    private List<List<String>> runShard(final ShardManifest manifest) throws Exception {
+        final List<List<String>> ran = new ArrayList<>();
+        final ShardDetector detector =
+                new ShardDetector(null, manifest, passing("original", manifest.tests())) {
+                    @Override
+                    protected TestRunResult runList(final List<String> tests, final TestRunResult intended) {
+                        ran.add(tests);
+                        return passing("round-" + ran.size(), tests);
+                    }
+                };
+
+        detector.withBudget(new RoundBudget(manifest.size(), Double.NaN, folder.getRoot().toPath().resolve("bank")));
+        detector.writeTo(folder.getRoot().toPath().resolve("results"));
+
+        return ran;
+    }
+
+    @Test
+    public void testAdaptiveRunsWholeManifest() throws Exception {
+        // Far more rounds without a new test than the adaptive window, which would otherwise stop the shard early
+        final ShardManifest manifest = ShardManifest.plan("random", tests(6), 50, 42, 2).get(1);
+
+        final List<List<String>> ran = runShard(manifest);
+
+        assertEquals(manifest.size(), ran.size());
+        for (int i = 0; i < manifest.size(); i++) {
+            assertEquals(manifest.order(i), ran.get(i));
+        }
+    }
+
+    @Test
+    public void testAdaptiveDoesNotRunPastManifest() throws Exception {
+        final ShardManifest manifest = ShardManifest.plan("random", tests(6), 3, 42, 1).get(0);
+
+        assertEquals(3, runShard(manifest).size());
+    }
+
+    private static class FolderProject implements ProjectWrapper {
+        private final File basedir;
+
+        private FolderProject(final File basedir) {
+            this.basedir = basedir;
+        }
+
+        public void debug(String str) {
+        }
+
+        public void info(String str) {
+        }
+
+        public void error(String str) {
+        }
+
+        public void error(Throwable t) {
+        }
+
+        public ProjectWrapper getParent() {
+            return null;
+        }
+
+        public File getBasedir() {
+            return basedir;
+        }
+
+        public String getGroupId() {
+            return "edu.illinois.cs";
+        }
+
+        public String getArtifactId() {
+            return "shard-test";
+        }
+
+        public String getVersion() {
+            return "1.0";
+        }
+
+        public String getBuildDirectory() {
+            return new File(basedir, "target").getAbsolutePath();
+        }
+
+        public List<String> getBuildTestOutputDirectories() {
+            return Collections.emptyList();
+        }
+
+        public boolean containJunit4() {
+            return true;
+        }
+
+        public boolean containJunit5() {
+            return false;
+        }
+
+        public List<String> getClasspathElements() {
+            return Collections.emptyList();
+        }
+
+        public Map<String, String> surefireEnvironment() {
+            return Collections.emptyMap();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package edu.illinois.cs.dt.tools.runner;
+
+import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.testrunner.data.results.Result;
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResultLogTest {
+    private static final String SEGMENT_SIZE = "dt.runner.result_store.segment_size";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void resetSegmentSize() {
+        Configuration.config().properties().remove(SEGMENT_SIZE);
+    }
+
+    private static TestRunResult testRun(final String id, final Result result, final String... tests) {
+        final Map<String, TestResult> results = new LinkedHashMap<>();
+        for (final String test : tests) {
+            final StackTraceElement[] trace = result == Result.PASS ? new StackTraceElement[0] :
+                    new StackTraceElement[] { new StackTraceElement("a.A", test, "A.java", 42) };
+            results.put(test, new TestResult(test, result, 0.5, trace));
+        }
+        return new TestRunResult(id, Arrays.asList(tests), results);
+    }
+
+    private static void assertSameRun(final TestRunResult expected, final TestRunResult actual) {
+        assertEquals(expected.id(), actual.id());
+        assertEquals(expected.testOrder(), actual.testOrder());
+        assertEquals(expected.results().keySet(), actual.results().keySet());
+
+        for (final String test : expected.results().keySet()) {
+            final TestResult expectedResult = expected.results().get(test);
+            final TestResult actualResult = actual.results().get(test);
+            assertEquals(expectedResult.result(), actualResult.result());
+            assertEquals(expectedResult.time(), actualResult.time(), 1E-9);
+            assertArrayEquals(expectedResult.stackTrace(), actualResult.stackTrace());
+        }
+    }
+
+    private Path logDir() {
+        return folder.getRoot().toPath().resolve(ResultLog.LOG_DIR);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (final Stream<Path> paths = Files.list(logDir())) {
+            return paths.filter(p -> p.getFileName().toString().startsWith("segment-")).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testAppendAndRead() throws Exception {
+        final ResultLog log = new ResultLog(logDir());
+        final TestRunResult passing = testRun("run-1", Result.PASS, "a.A.t1", "a.A.t2");
+        final TestRunResult failing = testRun("run-2", Result.FAILURE, "a.A.t2", "a.A.t1");
+
+        log.append(passing, "passing output");
+        log.append(failing, null);
+
+        assertEquals(Arrays.asList("run-1", "run-2"), log.ids());
+        assertSameRun(passing, log.read("run-1").get());
+        assertSameRun(failing, log.read("run-2").get());
+        assertEquals("passing output", log.output("run-1").get());
+        assertFalse(log.output("run-2").isPresent());
+        assertFalse(log.read("run-3").isPresent());
+    }
+
+    @Test
+    public void testReadWithoutStackTraces() throws Exception {
+        final ResultLog log = new ResultLog(logDir());
+        log.append(testRun("run-1", Result.ERROR, "a.A.t1"), null);
+
+        assertEquals(0, log.read("run-1", false).get().results().get("a.A.t1").stackTrace().length);
+        assertEquals(1, log.read("run-1", true).get().results().get("a.A.t1").stackTrace().length);
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        final TestRunResult first = testRun("run-1", Result.PASS, "a.A.t1", "a.A.t2");
+        final TestRunResult second = testRun("run-2", Result.FAILURE, "a.A.t1", "a.A.t2");
+
+        final ResultLog log = new ResultLog(logDir());
+        log.append(first, "out");
+        log.append(second, null);
+
+        final ResultLog reloaded = new ResultLog(logDir());
+        assertEquals(Arrays.asList("run-1", "run-2"), reloaded.ids());
+        assertSameRun(first, reloaded.read("run-1").get());
+        assertSameRun(second, reloaded.read("run-2").get());
+        assertEquals("out", reloaded.output("run-1").get());
+    }
+
+    @Test
+    public void testInterleavedAppends() throws Exception {
+        // Like two processes appending to the same log
+        final ResultLog log1 = new ResultLog(logDir());
+        final ResultLog log2 = new ResultLog(logDir());
+
+        log1.append(testRun("run-1", Result.PASS, "a.A.t1"), null);
+        log2.append(testRun("run-2", Result.PASS, "a.A.t1"), null);
+        log1.append(testRun("run-3", Result.FAILURE, "a.A.t1"), null);
+
+        assertEquals(Arrays.asList("run-1", "run-2", "run-3"), log1.ids());
+        assertEquals(Arrays.asList("run-1", "run-2", "run-3"), log2.ids());
+        assertTrue(log1.read("run-2").isPresent());
+        assertTrue(log2.read("run-3").isPresent());
+    }
+
+    @Test
+    public void testConcurrentAppends() throws Exception {
+        // Small segments, so the writers also race to start new ones
+        Configuration.config().properties().setProperty(SEGMENT_SIZE, "2000");
+
+        final int writers = 4;
+        final int runsPerWriter = 25;
+        final ExecutorService executor = Executors.newFixedThreadPool(writers);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            futures.add(executor.submit(() -> {
+                final ResultLog log = new ResultLog(logDir());
+                for (int i = 0; i < runsPerWriter; i++) {
+                    final String id = "run-" + writer + "-" + i;
+                    log.append(testRun(id, i % 2 == 0 ? Result.PASS : Result.FAILURE, "a.A.t" + writer, "a.A.t" + i), id);
+                }
+                return null;
+            }));
+        }
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        final ResultLog reloaded = new ResultLog(logDir());
+        assertEquals(writers * runsPerWriter, reloaded.ids().size());
+        for (int w = 0; w < writers; w++) {
+            for (int i = 0; i < runsPerWriter; i++) {
+                final String id = "run-" + w + "-" + i;
+                assertSameRun(testRun(id, i % 2 == 0 ? Result.PASS : Result.FAILURE, "a.A.t" + w, "a.A.t" + i),
+                              reloaded.read(id).get());
+                assertEquals(id, reloaded.output(id).get());
+            }
+        }
+    }
+
+    @Test
+    public void testRollover() throws Exception {
+        Configuration.config().properties().setProperty(SEGMENT_SIZE, "300");
+
+        final ResultLog log = new ResultLog(logDir());
+        final List<TestRunResult> runs = Arrays.asList(
+                testRun("run-1", Result.PASS, "a.A.t1", "a.A.t2", "a.A.t3"),
+                testRun("run-2", Result.FAILURE, "a.A.t3", "a.A.t2", "a.A.t1"),
+                testRun("run-3", Result.ERROR, "a.A.t2", "a.A.t1", "a.A.t3"),
+                testRun("run-4", Result.PASS, "a.A.t3", "a.A.t1", "a.A.t2"));
+        for (final TestRunResult run : runs) {
+            log.append(run, "output of " + run.id());
+        }
+
+        assertTrue(segments().size() > 1);
+        for (final Path segment : segments()) {
+            // A record larger than the segment size still gets a segment of its own
+            assertTrue(Files.size(segment) <= 300 || Files.readAllLines(segment).size() == 1);
+        }
+
+        final ResultLog reloaded = new ResultLog(logDir());
+        for (final TestRunResult run : runs) {
+            assertSameRun(run, reloaded.read(run.id()).get());
+            assertEquals("output of " + run.id(), reloaded.output(run.id()).get());
+        }
+
+        // Appending after a reload continues in the last segment instead of an old one
+        final int segmentCount = segments().size();
+        reloaded.append(testRun("run-5", Result.PASS, "a.A.t1"), null);
+        assertTrue(segments().size() >= segmentCount);
+        assertSameRun(testRun("run-5", Result.PASS, "a.A.t1"), new ResultLog(logDir()).read("run-5").get());
+    }
+
+    @Test
+    public void testReplacedIndex() throws Exception {
+        final ResultLog log = new ResultLog(logDir());
+        log.append(testRun("run-1", Result.PASS, "a.A.t1"), null);
+        assertEquals(Arrays.asList("run-1"), log.ids());
+
+        // Another process starts the log over
+        try (final Stream<Path> paths = Files.list(logDir())) {
+            for (final Path path : paths.collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+        final ResultLog other = new ResultLog(logDir());
+        other.append(testRun("run-2", Result.FAILURE, "a.A.t1"), null);
+
+        assertEquals(Arrays.asList("run-2"), log.ids());
+        assertSameRun(testRun("run-2", Result.FAILURE, "a.A.t1"), log.read("run-2").get());
+    }
+}
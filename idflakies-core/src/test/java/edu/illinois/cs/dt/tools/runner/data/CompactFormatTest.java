@@ -0,0 +1,84 @@
+package edu.illinois.cs.dt.tools.runner.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import edu.illinois.cs.testrunner.data.results.Result;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CompactFormatTest {
+    private static final Gson GSON = new Gson();
+
+    private static DependentTestList sampleList() {
+        final List<String> order = Arrays.asList("a.A.t1", "a.A.t2", "b.B.t1", "b.B.t2");
+        final List<String> other = Arrays.asList("b.B.t2", "a.A.t1", "b.B.t1");
+
+        final DependentTest victim = new DependentTest("b.B.t1",
+                new TestRun(Collections.singletonList("b.B.t1"), Result.PASS, "run-0"),
+                new TestRun(order.subList(0, 3), Result.FAILURE, "run-1"));
+        victim.polluterSet(new PolluterSet(PolluterSet.VICTIM, Collections.singletonList("a.A.t2"),
+                Collections.emptyList(), 4));
+
+        final DependentTest brittle = new DependentTest("b.B.t2",
+                new TestRun(order, Result.PASS, "run-1"),
+                new TestRun(other.subList(0, 1), Result.ERROR, null));
+
+        final DependentTest prefixOfOther = new DependentTest("a.A.t1",
+                new TestRun(order.subList(0, 1), Result.PASS, "run-1"),
+                new TestRun(other.subList(0, 2), Result.FAILURE, "run-2"));
+
+        return new DependentTestList(Arrays.asList(victim, brittle, prefixOfOther));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final DependentTestList list = sampleList();
+
+        final DependentTestList decoded = DependentTestList.fromJson(list.toString());
+
+        // The plain Gson form compares every name, order, result, run id and polluter set
+        assertEquals(GSON.toJson(list), GSON.toJson(decoded));
+    }
+
+    @Test
+    public void testRoundTripEmpty() {
+        final DependentTestList list = new DependentTestList(Collections.emptyList());
+
+        assertEquals(GSON.toJson(list), GSON.toJson(DependentTestList.fromJson(list.toString())));
+    }
+
+    @Test
+    public void testPrefixesShareOrders() {
+        final JsonObject json = CompactFormat.parse(sampleList().toString());
+
+        // Only the longest orders starting with a.A.t1, b.B.t2 and b.B.t1 are stored; the other runs are prefixes
+        assertEquals(3, json.getAsJsonArray("orders").size());
+        assertEquals(4, json.getAsJsonArray("tests").size());
+    }
+
+    @Test
+    public void testOldFormatStillRead() {
+        final DependentTestList list = sampleList();
+
+        assertEquals(GSON.toJson(list), GSON.toJson(DependentTestList.fromJson(GSON.toJson(list))));
+    }
+
+    @Test
+    public void testEmptyFile() {
+        assertNull(DependentTestList.fromJson(""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownFormatRejected() {
+        final JsonObject json = CompactFormat.parse(sampleList().toString());
+        json.addProperty("format", "compact-v99");
+
+        DependentTestList.fromJson(json.toString());
+    }
+}
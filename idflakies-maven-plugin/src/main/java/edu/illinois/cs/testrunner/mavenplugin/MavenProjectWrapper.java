@@ -6,6 +6,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.maven.artifact.Artifact;
@@ -104,7 +106,7 @@ public class MavenProjectWrapper implements ProjectWrapper {
         return t == null ? Stream.empty() : Stream.of(t);
     }
 
-    public Map<String, String> surefireEnvironment() {
+    private Stream<Xpp3Dom> surefireConfiguration() {
         List<Plugin> plugins = project.getBuildPlugins();
         return plugins.stream().filter(p -> p.getArtifactId().equals("maven-surefire-plugin"))
                 .flatMap(p -> emptyIfNull(p.getConfiguration())).flatMap(conf -> {
@@ -113,9 +115,51 @@ public class MavenProjectWrapper implements ProjectWrapper {
                     } else {
                         return Stream.empty();
                     }
-                }).flatMap(conf -> emptyIfNull(conf.getChild("environmentVariables")))
+                });
+    }
+
+    public Map<String, String> surefireEnvironment() {
+        return surefireConfiguration().flatMap(conf -> emptyIfNull(conf.getChild("environmentVariables")))
                 .flatMap(envVars -> emptyIfNull(envVars.getChildren())).flatMap(Arrays::stream)
                 .collect(Collectors.toMap(Xpp3Dom::getName,
                         v -> v.getValue() == null ? "" : v.getValue()));
     }
+
+    /**
+     * The JVM arguments surefire runs the tests with: its argLine (or the argLine property, which is what surefire
+     * uses when argLine is not configured) and its systemPropertyVariables as -D options.
+     * Late replacements like @{argLine} are resolved from the project properties.
+     */
+    public List<String> surefireJvmArgs() {
+        final String argLine = surefireConfiguration().flatMap(conf -> emptyIfNull(conf.getChild("argLine")))
+                .flatMap(conf -> emptyIfNull(conf.getValue()))
+                .findFirst()
+                .orElse(project.getProperties().getProperty("argLine", ""));
+
+        final List<String> args = new ArrayList<>();
+        for (final String arg : resolveLateReplacements(argLine).trim().split("\\s+")) {
+            if (!arg.isEmpty()) {
+                args.add(arg);
+            }
+        }
+
+        surefireConfiguration().flatMap(conf -> emptyIfNull(conf.getChild("systemPropertyVariables")))
+                .flatMap(vars -> emptyIfNull(vars.getChildren())).flatMap(Arrays::stream)
+                .forEach(v -> args.add("-D" + v.getName() + "=" + (v.getValue() == null ? "" : v.getValue())));
+
+        return args;
+    }
+
+    private String resolveLateReplacements(final String str) {
+        final Matcher matcher = Pattern.compile("@\\{([^}]+)\\}").matcher(str);
+        final StringBuffer sb = new StringBuffer();
+
+        while (matcher.find()) {
+            final String value = project.getProperties().getProperty(matcher.group(1), "");
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(sb);
+
+        return sb.toString();
+    }
 }
@@ -1,8 +1,11 @@
 package edu.illinois.cs.testrunner.mavenplugin;
 
 import edu.illinois.cs.dt.tools.constants.StartsConstants;
+import edu.illinois.cs.dt.tools.detection.CallGraphGenerator;
 import edu.illinois.cs.dt.tools.detection.DetectorPlugin;
+import edu.illinois.cs.dt.tools.detection.MethodClosure;
 import edu.illinois.cs.dt.tools.detection.ODFlakyTestFinder;
+import edu.illinois.cs.testrunner.configuration.Configuration;
 import edu.illinois.cs.testrunner.coreplugin.TestPluginUtil;
 import edu.illinois.starts.helpers.Cache;
 import edu.illinois.starts.helpers.Loadables;
@@ -36,12 +39,22 @@ public class ODFlakyTestCandidatesMojo extends DiffMojo implements StartsConstan
     @Parameter(property = "runIdflakies", defaultValue = TRUE)
     private boolean runIdflakies;
 
+    /**
+     * Set this to "true" to only run the test methods of the candidate classes that reach a class with static
+     * fields in the call graph, instead of every test method of the candidate classes.
+     */
+    @Parameter(property = "selectTestMethods", defaultValue = FALSE)
+    private boolean selectTestMethods;
+
     @Parameter(defaultValue = "")
     private String propertiesPath;
 
     private Set<String> nonAffectedTests;
+    private Set<String> allTestClasses;
     // private Set<String> changedClasses;
     private Set<String> flakyTestCandidates;
+    // null if the test methods were not selected
+    private Set<String> flakyTestMethodCandidates;
 
     public void execute() throws MojoExecutionException {
 //        Logger.getGlobal().setLoggingLevel(Level.parse(loggingLevel));
@@ -91,15 +104,29 @@ public class ODFlakyTestCandidatesMojo extends DiffMojo implements StartsConstan
     private void runDetectorMethod(MavenProject project, Set<String> flakyTestCandidates) {
         try{
             TestPluginUtil.setConfigs(this.propertiesPath);
-            TestPluginUtil.project = new MavenProjectWrapper(project, new IdflakiesLog());
+            final MavenProjectWrapper wrapper = new MavenProjectWrapper(project, new IdflakiesLog());
+            TestPluginUtil.project = wrapper;
+            setPoolJvmArgs(wrapper);
             DetectorPlugin detector = new DetectorPlugin();
-            detector.executeSelectedIdflakies(TestPluginUtil.project, flakyTestCandidates, runIdflakies);
+            detector.executeSelectedIdflakies(TestPluginUtil.project, flakyTestCandidates, flakyTestMethodCandidates, runIdflakies);
         } catch (IOException ioe) { ioe.printStackTrace(); }
     }
 
+    /**
+     * Pooled test JVMs are started by us rather than by surefire, so give them the JVM arguments surefire would use,
+     * unless dt.runner.pool.jvm_args is set explicitly.
+     */
+    private void setPoolJvmArgs(final MavenProjectWrapper wrapper) {
+        if (Configuration.config().properties().getProperty("dt.runner.pool.jvm_args") == null) {
+            Configuration.config().properties().setProperty("dt.runner.pool.jvm_args",
+                    String.join(" ", wrapper.surefireJvmArgs()));
+        }
+    }
+
     private Set<String> computeAffectedTests(MavenProject project) throws MojoExecutionException {
         setIncludesExcludes();
         Set<String> allTests = new HashSet<>(getTestClasses(CHECK_IF_ALL_AFFECTED));
+        allTestClasses = allTests;
         Set<String> affectedTests = new HashSet<>(allTests);
         Pair<Set<String>, Set<String>> data = computeChangeData(true);
         nonAffectedTests = data == null ? new HashSet<String>() : data.getKey();
@@ -151,14 +178,69 @@ public class ODFlakyTestCandidatesMojo extends DiffMojo implements StartsConstan
     private Set<String> computeFlakyTestCandidates(Set<String> affectedClassesUnderTest, MavenProject project)
             throws IOException, DependencyResolutionRequiredException, MojoExecutionException {
         long startFlaky = System.currentTimeMillis();
-        List<String> classesWithStaticFields = ODFlakyTestFinder.staticFieldsFinder(affectedClassesUnderTest, project);
+        List<String> classesWithStaticFields = ODFlakyTestFinder.staticFieldsFinder(affectedClassesUnderTest, project, new File(getArtifactsDir()));
         List<String> odFlakyTestCandid = ODFlakyTestFinder.getFlakyTestCandidatesFromSelectedTests(classesWithStaticFields, project);
         long endFlaky = System.currentTimeMillis();
         Writer.writeToFile(classesWithStaticFields, StartsConstants.CLASSES_WITH_STATICFIELDS, getArtifactsDir());
         log(Level.FINE, PROFILE_STARTS_MOJO_FLAKY_TEST_TIME + Writer.millsToSeconds(endFlaky - startFlaky));
+        if (selectTestMethods && !odFlakyTestCandid.isEmpty()) {
+            flakyTestMethodCandidates = computeFlakyTestMethodCandidates(new HashSet<>(odFlakyTestCandid), classesWithStaticFields, project);
+        }
         return new HashSet<>(odFlakyTestCandid);
     }
 
+    /*
+     * The test methods of the candidate classes that reach a class with static fields, and the test methods of any test
+     * class that reach the same classes (their potential polluters), or null if the call graph could not be built (then
+     * every test method of the candidates runs). Candidate classes that depend on a class with static fields outside of
+     * the call graph (e.g., in a jar) keep all their test methods
+     */
+    private Set<String> computeFlakyTestMethodCandidates(Set<String> flakyTestCandidates, List<String> classesWithStaticFields,
+                                                         MavenProject project) {
+        long startMethods = System.currentTimeMillis();
+        Set<String> testMethods;
+        try {
+            Map<String, String[]> depTestMap = ODFlakyTestFinder.getDepTests(project);
+            Set<String> staticClasses = new HashSet<>();
+            Set<String> wholeClasses = new HashSet<>();
+            for (String cls: classesWithStaticFields) {
+                // Either jar!/a/b/C or a/b/C
+                boolean inJar = cls.contains(EXCLAMATION);
+                String internalName = inJar ? cls.substring(cls.indexOf(EXCLAMATION) + 2) : cls;
+                staticClasses.add(internalName.replace(BACKSLASH, DOT));
+                if (inJar || !isInCallGraphScope(internalName)) {
+                    wholeClasses.addAll(ODFlakyTestFinder.getDepTestsOfClass(cls, depTestMap));
+                }
+            }
+
+            Set<String> testClasses = new HashSet<>(allTestClasses);
+            testClasses.addAll(flakyTestCandidates);
+            MethodClosure methodClosure = CallGraphGenerator.getMethodClosure(
+                    getTestClassesDirectory().getAbsolutePath(),
+                    Collections.singletonList(getClassesDirectory().getAbsolutePath()),
+                    new File(getArtifactsDir(), CALL_GRAPH_CACHE).toPath(), testClasses);
+            testMethods = CallGraphGenerator.getFlakyTestMethods(methodClosure, flakyTestCandidates, staticClasses);
+            testMethods.addAll(CallGraphGenerator.getPolluterTestMethods(methodClosure, testClasses, testMethods, staticClasses));
+            testMethods.removeIf(method -> wholeClasses.contains(method.substring(0, method.lastIndexOf(DOT))));
+        } catch (Exception e) {
+            log(Level.WARNING, "Could not build the call graph, running every test method of the candidates: " + e);
+            return null;
+        }
+
+        Writer.writeToFile(testMethods, StartsConstants.FLAKY_TEST_METHODS, getArtifactsDir());
+        Set<String> selectResult = new HashSet<>();
+        selectResult.add("#CandidateTestMethods: " + testMethods.size());
+        printResult(selectResult, "#Method Candidates Results");
+        long endMethods = System.currentTimeMillis();
+        log(Level.FINE, PROFILE_STARTS_MOJO_FLAKY_TEST_TIME + Writer.millsToSeconds(endMethods - startMethods));
+        return testMethods;
+    }
+
+    private boolean isInCallGraphScope(String internalName) {
+        String classFile = internalName.replace(BACKSLASH.charAt(0), File.separatorChar) + CLASS_EXTENSION;
+        return new File(getClassesDirectory(), classFile).isFile() || new File(getTestClassesDirectory(), classFile).isFile();
+    }
+
     private Map<String, Set<String>> getDepMap(List<String> classesToAnalyze) throws MojoExecutionException {
         Classpath sfClassPath = getSureFireClassPath();
         String sfPathString = Writer.pathToString(sfClassPath.getClassPath());